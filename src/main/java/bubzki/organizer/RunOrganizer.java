@@ -24,6 +24,7 @@ public class RunOrganizer extends Application {
 		stage.setScene(scene);
 		stage.show();
 		stage.setOnCloseRequest(windowEvent -> {
+			controller.shutdown();
 			controller.writingData();
 			controller.logger.debug("App is closed.");
 		});
@@ -24,11 +24,9 @@ public class ActionController extends Controller {
                         throw new IllegalArgumentException("Select whether the task is repeated.");
                     }
                     temp.setActive(activeRadioTrue.isSelected());
-                    list.add(temp);
+                    observableList.add(temp);
                     logger.info("Task was added.");
                     unselectColumn();
-                    notificator.updateNotificator(list);
-                    loadMainTable();
                 } else {
                     throw new IllegalArgumentException("Title filed must be filled in.");
                 }
@@ -51,17 +49,17 @@ public class ActionController extends Controller {
             if (activateGroup.getSelectedToggle() != null) {
                 try {
                     if (!textFieldIsEmpty(titleField)) {
-                        temp.setTitle(titleField.getText());
-                        if (repeatRadioTrue.isSelected()) {
-                            temp.setTime(startTimeField.getDateTimeValue(), endTimeField.getDateTimeValue(), intervalField.getValue());
-                        } else {
-                            temp.setTime(startTimeField.getDateTimeValue());
-                        }
-                        temp.setActive(activeRadioTrue.isSelected());
+                        observableList.update(temp, task -> {
+                            task.setTitle(titleField.getText());
+                            if (repeatRadioTrue.isSelected()) {
+                                task.setTime(startTimeField.getDateTimeValue(), endTimeField.getDateTimeValue(), intervalField.getValue());
+                            } else {
+                                task.setTime(startTimeField.getDateTimeValue());
+                            }
+                            task.setActive(activeRadioTrue.isSelected());
+                        });
                         logger.info("Task was edited.");
                         unselectColumn();
-                        notificator.updateNotificator(list);
-                        mainTable.refresh();
                     } else {
                         throw new IllegalArgumentException("Title filed must be filled in.");
                     }
@@ -84,11 +82,9 @@ public class ActionController extends Controller {
     private void removeButtonAction() {
         if (mainTable.getSelectionModel().getSelectedItem() != null) {
             Task temp = mainTable.getSelectionModel().getSelectedItem();
-            list.remove(temp);
+            observableList.remove(temp);
             logger.info("Task was removed.");
             unselectColumn();
-            notificator.updateNotificator(list);
-            loadMainTable();
         } else {
             showError("Unable to remove task.", "Please, select a row to remove.");
         }
@@ -102,7 +98,6 @@ public class ActionController extends Controller {
         unselectColumn();
         repeatRadioTrue.setSelected(false);
         repeatRadioFalse.setSelected(true);
-        loadMainTable();
     }
 
     /**
@@ -134,4 +129,15 @@ public class ActionController extends Controller {
             loadCalendarTable();
         }
     }
+
+    /**
+     * The method that loads the next page of the cut calendar in table in Calendar tab. Function of button <code>Next</code>.
+     */
+    @FXML
+    private void nextPageButtonAction() {
+        calendarTable.getSelectionModel().clearSelection();
+        if (nextCalendarPage != null) {
+            loadNextCalendarPage();
+        }
+    }
 }
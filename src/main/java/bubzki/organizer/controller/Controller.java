@@ -5,6 +5,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import bubzki.organizer.model.AbstractTaskList;
+import bubzki.organizer.model.Task;
 import bubzki.organizer.view.View;
 
 import java.util.*;
@@ -21,10 +22,11 @@ public class Controller extends View {
     /**
      * The method that initializes JavaFX window:
      * <ul>
-     * <li>loads data from the file;</li>
+     * <li>starts loading data from the file in the background;</li>
      * <li>turn on the notification;</li>
      * <li>loads data to table in Main tab.</li>
      * </ul>
+     * The loaded tasks are added to the list, the table and the notification by {@link #tasksLoaded(List)}.
      */
     @FXML
     protected void initialize() {
@@ -49,6 +51,26 @@ public class Controller extends View {
         }
     }
 
+    /**
+     * The method that adds the batch of tasks loaded from the file to the list and the table in Main tab,
+     * the notification takes them from the change of the list. It is called on the JavaFX thread.
+     *
+     * @param tasks the loaded tasks
+     */
+    protected void tasksLoaded(List<Task> tasks) {
+        observableList.addAll(tasks);
+    }
+
+    /**
+     * The method that disables adding, editing and removing tasks, when their changes cannot be saved.
+     * It is called on the JavaFX thread.
+     */
+    protected void disableEditing() {
+        addButton.setDisable(true);
+        editButton.setDisable(true);
+        removeButton.setDisable(true);
+    }
+
     /**
      * The method that writes data to the file.
      */
@@ -56,6 +78,13 @@ public class Controller extends View {
         loadController.writingData();
     }
 
+    /**
+     * The method that stops background work of the app before closing.
+     */
+    public void shutdown() {
+        notificator.stopNotificator();
+    }
+
     /**
      * Getter for the list of task.
      *
@@ -1,25 +1,46 @@
 package bubzki.organizer.controller;
 
+import bubzki.organizer.model.Task;
 import bubzki.organizer.model.TaskIO;
+import bubzki.organizer.model.TaskJournal;
+import bubzki.organizer.model.TaskListChange;
+import javafx.application.Platform;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The class that is responsible for loading data from a file.
+ * The file keeps the snapshot of the list, and the changes since the snapshot are kept in the {@link TaskJournal},
+ * which checkpoints them into the file in the background.
+ * The changes are taken from the listener of the task list, so every change of the list is journaled.
+ * If the file cannot be read, the list is not complete and its changes cannot be journaled,
+ * so editing is disabled and the file is kept as it is.
  */
 public class LoadController {
     private final Controller controller;
     private final static String PATH_TO_LIST = "data/tasks.bin";
+    private final static long CHECKPOINT_PERIOD_SECONDS = 60;
+    private TaskJournal journal;
+    private boolean loaded;
+    private boolean delivering;
 
     protected LoadController(Controller controller) {
         this.controller = controller;
+        controller.getTaskList().addListener(this::listChanged);
     }
 
     /**
-     * The method that reads data from file to the list.
+     * The method that starts reading data from file to the list in the background.
+     * The tasks are decoded with the journal of changes applied and are given to the controller in batches
+     * on the JavaFX thread, so the window is shown at once and the rows appear while the file is read.
+     * The journal is told that the list is loaded by the task queued after all batches,
+     * so it is not compacted into the file before the list has all tasks.
      */
     protected void readingData() {
         Path path = Paths.get(PATH_TO_LIST);
@@ -33,15 +54,131 @@ public class LoadController {
                 controller.logger.error("Reading data error.", e);
                 controller.showError("Unsuccessful reading from file \"" + path + "\".", e);
             }
-        } else {
-            TaskIO.readBinary(controller.getTaskList(), path.toFile());
         }
+        TaskJournal tempJournal = new TaskJournal(path.toFile());
+        journal = tempJournal;
+        Thread loader = new Thread(() -> {
+            long started = System.nanoTime();
+            try {
+                int records = tempJournal.load(controller.getTaskList(),
+                        batch -> Platform.runLater(() -> deliver(batch)));
+                Platform.runLater(() -> {
+                    tempJournal.setCheckpointListener((duration, e) -> {
+                        if (e == null) {
+                            controller.logger.info("Checkpoint took " + duration.toMillis() + " ms.");
+                        } else {
+                            controller.logger.error("Checkpoint error.", e);
+                        }
+                    });
+                    try {
+                        tempJournal.loadCompleted();
+                    } catch (IOException | RuntimeException e) {
+                        loadFailed(path, tempJournal, e);
+                        return;
+                    }
+                    loaded = true;
+                    tempJournal.checkpointEvery(CHECKPOINT_PERIOD_SECONDS, TimeUnit.SECONDS);
+                    controller.logger.debug("Data was loaded in " + (System.nanoTime() - started) / 1_000_000
+                            + " ms, journal records: " + records + ".");
+                });
+            } catch (IOException | RuntimeException e) {
+                Platform.runLater(() -> loadFailed(path, tempJournal, e));
+            }
+        }, "Loading");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * The method that stops journaling after the file could not be read and tells the user
+     * that the changes cannot be saved. Editing is disabled, so no change is left out of the journal.
+     *
+     * @param path the path to the file
+     * @param failedJournal the journal that could not be loaded
+     * @param e the exception of loading
+     */
+    private void loadFailed(Path path, TaskJournal failedJournal, Exception e) {
+        controller.disableEditing();
+        journal = null;
+        try {
+            failedJournal.close();
+        } catch (IOException closeException) {
+            e.addSuppressed(closeException);
+        }
+        controller.logger.error("Reading data error.", e);
+        controller.showError("Unsuccessful reading from file \"" + path + "\". Changes of tasks cannot be saved,"
+                + " so adding, editing and removing tasks are disabled until the app is restarted.", e);
+    }
+
+    /**
+     * The method that gives the loaded batch of tasks to the controller.
+     * The batch is already in the file, so it is not written to the journal.
+     *
+     * @param batch the loaded tasks
+     */
+    private void deliver(List<Task> batch) {
+        delivering = true;
+        try {
+            controller.tasksLoaded(batch);
+        } finally {
+            delivering = false;
+        }
+    }
+
+    /**
+     * The method that writes the change of the task list to the journal:
+     * the removed tasks first, then the added and the modified ones.
+     *
+     * @param change the change of the task list
+     */
+    private void listChanged(TaskListChange change) {
+        if (journal == null || delivering) {
+            return;
+        }
+        for (Task task : change.getRemoved()) {
+            logFailure(journal.removed(task));
+        }
+        for (Task task : change.getAdded()) {
+            logFailure(journal.added(task));
+        }
+        for (TaskListChange.Modification modification : change.getModified()) {
+            logFailure(journal.edited(modification.getTask()));
+        }
+    }
+
+    private void logFailure(CompletableFuture<Void> written) {
+        written.whenComplete((result, e) -> {
+            if (e != null) {
+                controller.logger.error("Writing journal error.", e);
+            }
+        });
     }
 
     /**
      * The method that writes data from list to the file.
+     * If the journal is open, the changes are already in the journal or the file,
+     * so the journal is only flushed and closed, and the file is checkpointed in the background while the app runs.
      */
     protected void writingData() {
+        if (!loaded) {
+            controller.logger.warn("Data was not loaded completely, the file is kept.");
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    controller.logger.error("Closing journal error.", e);
+                }
+            }
+            return;
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+                return;
+            } catch (IOException e) {
+                controller.logger.error("Closing journal error.", e);
+            }
+        }
         Path path = Paths.get(PATH_TO_LIST);
         if (Files.notExists(path)) {
             try {
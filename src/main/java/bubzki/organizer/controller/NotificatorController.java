@@ -1,50 +1,53 @@
 package bubzki.organizer.controller;
 
 import bubzki.organizer.notification.Notificator;
-import bubzki.organizer.model.Task;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * The class that manages notifications.
  */
 public class NotificatorController {
+    private final static long SHUTDOWN_TIMEOUT_MILLIS = 1000;
     private final Notificator notificator;
     private final Controller controller;
 
     /**
      * The constructor that sets controller which will manage this controller.
+     * The notifications follow the changes of the task list of the controller.
      * @param controller controller that manages this object.
      */
     protected NotificatorController(Controller controller) {
         this.controller = controller;
         notificator = new Notificator(controller.getTaskList(), controller.icon);
+        controller.getTaskList().addListener(notificator::listChanged);
     }
 
     /**
-     * The method that runs daemon thread of notification.
+     * The method that runs notification.
      */
     protected void runNotificator() {
-        notificator.setDaemon(true);
+        notificator.setTasksList(controller.getTaskList());
         notificator.start();
         controller.logger.debug("Notification is running.");
     }
 
     /**
-     * The method that stops thread of notification.
+     * The method that stops notification.
      */
     protected void stopNotificator() {
-        if (notificator.isAlive()) {
-            notificator.stop();
+        try {
+            if (!notificator.shutdown(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                controller.logger.warn("Notification was not stopped in time.");
+            } else {
+                controller.logger.debug("Notification is stopped.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            controller.logger.error("Stopping notification was interrupted.", e);
         }
     }
 
-    /**
-     * The method that updates task list for notification.
-     * @param list task list which notificator will operate.
-     */
-    public void updateNotificator(Iterable<Task> list) {
-        notificator.setTasksList(list);
-    }
-
     /**
      * The method that changes the time for how long the notification should arrive before the start of the task.
      * @param seconds time in seconds when the notification about the task will come.
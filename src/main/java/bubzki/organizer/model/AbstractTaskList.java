@@ -2,10 +2,38 @@ package bubzki.organizer.model;
 
 import java.io.*;
 import java.time.LocalDateTime;
-import java.util.Iterator;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
+/**
+ * The base class of task lists.
+ * A list publishes its changes to the listeners as {@link TaskListChange} objects and counts them in its version,
+ * so the views and indexes of the list can be updated by the changed tasks instead of the whole list.
+ * The listeners are called in the thread that changed the list, after the change.
+ */
 public abstract class AbstractTaskList implements Iterable<Task>, Cloneable, Externalizable {
+    private static final long serialVersionUID = -4613795790393672349L;
+    private static final int EXTERNAL_VERSION = 1;
+    /**
+     * The size of the list from which the default search of incoming tasks runs in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 10000;
+    /**
+     * The largest number of tasks for which a list is presized by a count read from a stream,
+     * so a corrupted count cannot force a huge allocation. The list grows as usual above it.
+     */
+    static final int MAX_STREAM_PRESIZE = 1 << 16;
+    private transient List<Consumer<? super TaskListChange>> listeners = new CopyOnWriteArrayList<>();
+    private transient volatile long version;
+    private transient int changeDepth;
+    private transient boolean changed;
+    private transient TaskListChange pending;
+
     public abstract void add(Task task);
 
     public abstract boolean remove(Task task);
@@ -14,6 +42,407 @@ public abstract class AbstractTaskList implements Iterable<Task>, Cloneable, Ext
 
     public abstract Task getTask(int index);
 
+    /**
+     * The method that prepares the list for adding tasks up to the specified number.
+     * Lists which are not based on arrays ignore it.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+    }
+
+    /**
+     * The method that prepares the list for adding tasks up to the specified number by a bulk operation.
+     * Unlike {@link #ensureCapacity(int)} it is not requested by the user of the list,
+     * so the lists which keep the requested capacity do not keep this one.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    void presize(int minCapacity) {
+        ensureCapacity(minCapacity);
+    }
+
+    /**
+     * The method that adds all tasks to the end of the list in the order of <code>tasks</code>.
+     * The list is presized once for all tasks.
+     *
+     * @param tasks the tasks that need to add
+     *
+     * @return "true" if the list was changed
+     *
+     * @throws NullPointerException if <code>tasks</code> or any of the tasks is null pointer,
+     * in which case the list is not changed
+     */
+    public boolean addAll(Iterable<? extends Task> tasks) throws NullPointerException {
+        Task[] added = toArray(tasks);
+        presize(size() + added.length);
+        beginChange();
+        try {
+            for (Task task : added) {
+                add(task);
+            }
+        } finally {
+            endChange();
+        }
+        return added.length != 0;
+    }
+
+    /**
+     * The method that removes all tasks that satisfy the filter.
+     *
+     * @param filter the predicate which returns <code>true</code> for tasks that need to remove
+     *
+     * @return "true" if any task was removed
+     *
+     * @throws NullPointerException if <code>filter</code> is null pointer
+     */
+    public boolean removeIf(Predicate<? super Task> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException("Filter must not be null.");
+        }
+        boolean removed = false;
+        beginChange();
+        try {
+            for (Iterator<Task> iterator = iterator(); iterator.hasNext();) {
+                if (filter.test(iterator.next())) {
+                    iterator.remove();
+                    removed = true;
+                }
+            }
+        } finally {
+            endChange();
+        }
+        return removed;
+    }
+
+    /**
+     * The method that removes all tasks which are not in <code>tasks</code>.
+     * Tasks are compared by identifiers.
+     *
+     * @param tasks the tasks that need to keep
+     *
+     * @return "true" if any task was removed
+     *
+     * @throws NullPointerException if <code>tasks</code> is null pointer
+     */
+    public boolean retainAll(Iterable<? extends Task> tasks) throws NullPointerException {
+        if (tasks == null) {
+            throw new NullPointerException("Tasks must not be null.");
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return removeIf(task -> !ids.contains(task.getId()));
+    }
+
+    /**
+     * The method that replaces every task with the result of the operator, keeping the order of the list.
+     *
+     * @param operator the operator that returns the new task for every task
+     *
+     * @throws NullPointerException if <code>operator</code> or any of its results is null pointer,
+     * in which case the list is not changed
+     */
+    public void replaceAll(UnaryOperator<Task> operator) throws NullPointerException {
+        Task[] replaced = replacements(operator);
+        beginChange();
+        try {
+            removeIf(task -> true);
+            addAll(Arrays.asList(replaced));
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * The method that changes the task of this list in place and publishes the modification
+     * with the copy of the task before the change. The modification is published even if the change fails,
+     * because the task could be changed partly.
+     *
+     * @param task the task of this list
+     * @param change the action that changes the task
+     *
+     * @return "true" if the task is in the list, "false" if the task not on the list, in which case it is not changed
+     *
+     * @throws NullPointerException if <code>task</code> or <code>change</code> is null pointer
+     */
+    public boolean update(Task task, Consumer<? super Task> change) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Cannot update null pointer.");
+        }
+        if (change == null) {
+            throw new NullPointerException("Change must not be null.");
+        }
+        if (getById(task.getId()) != task) {
+            return false;
+        }
+        Task oldTask;
+        try {
+            oldTask = task.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        try {
+            change.accept(task);
+        } finally {
+            fireModified(oldTask, task);
+        }
+        return true;
+    }
+
+    /**
+     * The method that copies the tasks of the list in its order, so they can be read
+     * by another thread while the tasks of the list are changed.
+     *
+     * @return the list of copies of the tasks
+     */
+    List<Task> copyTasks() {
+        List<Task> copies = new ArrayList<>(size());
+        for (Task task : this) {
+            try {
+                copies.add(task.clone());
+            } catch (CloneNotSupportedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * The method that adds the listener of the changes of this list.
+     *
+     * @param listener the listener that takes every change of the list
+     *
+     * @throws NullPointerException if <code>listener</code> is null pointer
+     */
+    public void addListener(Consumer<? super TaskListChange> listener) throws NullPointerException {
+        if (listener == null) {
+            throw new NullPointerException("Listener must not be null.");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * The method that removes the listener of the changes of this list.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(Consumer<? super TaskListChange> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Getter for the version of the list, which grows by one with every published change.
+     * Two equal versions of the list mean that the list was not changed through its methods between them.
+     *
+     * @return the version of the list
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The method that starts a batch of changes, which are published as one change by the last {@link #endChange()}.
+     * Batches can be nested.
+     */
+    protected final void beginChange() {
+        changeDepth++;
+    }
+
+    /**
+     * The method that ends a batch of changes and publishes them if it is the outermost batch.
+     */
+    protected final void endChange() {
+        if (--changeDepth == 0) {
+            publish();
+        }
+    }
+
+    /**
+     * The method that publishes the added task, or adds it to the current batch.
+     *
+     * @param task the added task
+     */
+    protected final void fireAdded(Task task) {
+        if (!listeners.isEmpty()) {
+            pending().add(task);
+        }
+        changed();
+    }
+
+    /**
+     * The method that publishes the removed task, or adds it to the current batch.
+     *
+     * @param task the removed task
+     */
+    protected final void fireRemoved(Task task) {
+        if (!listeners.isEmpty()) {
+            pending().remove(task);
+        }
+        changed();
+    }
+
+    /**
+     * The method that publishes the modified task, or adds it to the current batch.
+     *
+     * @param oldTask the copy of the task before the modification
+     * @param task the modified task
+     */
+    protected final void fireModified(Task oldTask, Task task) {
+        if (!listeners.isEmpty()) {
+            pending().modify(oldTask, task);
+        }
+        changed();
+    }
+
+    /**
+     * The method that publishes the replacement of the task: as a modification if the new task
+     * has the same identifier, or as the removal of the old task and the addition of the new one.
+     *
+     * @param oldTask the replaced task
+     * @param task the new task
+     */
+    protected final void fireReplaced(Task oldTask, Task task) {
+        if (oldTask.equals(task)) {
+            fireModified(oldTask, task);
+        } else {
+            beginChange();
+            fireRemoved(oldTask);
+            fireAdded(task);
+            endChange();
+        }
+    }
+
+    private TaskListChange pending() {
+        if (pending == null) {
+            pending = new TaskListChange(this);
+        }
+        return pending;
+    }
+
+    private void changed() {
+        changed = true;
+        if (changeDepth == 0) {
+            publish();
+        }
+    }
+
+    /**
+     * The method that increases the version and gives the collected change to the listeners.
+     */
+    private void publish() {
+        if (!changed) {
+            return;
+        }
+        TaskListChange change = pending;
+        changed = false;
+        pending = null;
+        version++;
+        if (change != null) {
+            change.setVersion(version);
+            for (Consumer<? super TaskListChange> listener : listeners) {
+                listener.accept(change);
+            }
+        }
+    }
+
+    /**
+     * The method that copies the tasks into an array and checks that there are no null pointers.
+     *
+     * @param tasks the tasks
+     *
+     * @return the array of tasks
+     *
+     * @throws NullPointerException if <code>tasks</code> or any of the tasks is null pointer
+     */
+    static Task[] toArray(Iterable<? extends Task> tasks) throws NullPointerException {
+        if (tasks == null) {
+            throw new NullPointerException("Tasks must not be null.");
+        }
+        List<Task> list = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task == null) {
+                throw new NullPointerException("Cannot add null pointer.");
+            }
+            list.add(task);
+        }
+        return list.toArray(new Task[0]);
+    }
+
+    /**
+     * The method that applies the operator to every task of the list
+     * before any of them is replaced.
+     *
+     * @param operator the operator that returns the new task for every task
+     *
+     * @return the array of new tasks in the order of the list
+     *
+     * @throws NullPointerException if <code>operator</code> or any of its results is null pointer
+     */
+    Task[] replacements(UnaryOperator<Task> operator) throws NullPointerException {
+        if (operator == null) {
+            throw new NullPointerException("Operator must not be null.");
+        }
+        Task[] replaced = new Task[size()];
+        int i = 0;
+        for (Task task : this) {
+            replaced[i] = operator.apply(task);
+            if (replaced[i] == null) {
+                throw new NullPointerException("Cannot replace a task with null pointer.");
+            }
+            i++;
+        }
+        return replaced;
+    }
+
+    /**
+     * The method that returns the task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the task with the specified identifier or <code>null</code> if there is no such task in the list
+     */
+    public Task getById(long id) {
+        for (Task task : this) {
+            if (task.getId() == id) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The method that returns the position of the first task with the specified identifier.
+     * The lists with an index of identifiers find it without iterating the list.
+     *
+     * @param id the task identifier
+     *
+     * @return the position of the task or -1 if there is no such task in the list
+     */
+    public int indexOfId(long id) {
+        int index = 0;
+        for (Task task : this) {
+            if (task.getId() == id) {
+                return index;
+            }
+            ++index;
+        }
+        return -1;
+    }
+
+    /**
+     * The method that removes the task with the specified identifier from the list.
+     *
+     * @param id the task identifier
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     */
+    public boolean removeById(long id) {
+        Task task = getById(id);
+        return task != null && remove(task);
+    }
+
     /**
      * The method that finds a subset of tasks
      * that are scheduled to run at least once after time <code>from</code> and no later than <code>to</code>.
@@ -37,11 +466,51 @@ public abstract class AbstractTaskList implements Iterable<Task>, Cloneable, Ext
             throw new IllegalArgumentException("Time \"to\" must be greater than \"from\".");
         }
         AbstractTaskList tempTaskList = getTaskList();
-        getStream().filter((e) -> e.nextTimeAfter(from) != null && (e.nextTimeAfter(from).isBefore(to) || e.nextTimeAfter(from).isEqual(to)))
-                .forEach(tempTaskList::add);
+        forEachIncoming(Task.toEpochSecond(from), Task.toEpochSecond(to), tempTaskList::add);
         return tempTaskList;
     }
 
+    /**
+     * The method that performs the action for each task of this list
+     * that is scheduled to run at least once after time <code>from</code> and no later than <code>to</code>.
+     * The tasks are passed in the order of this list, in the calling thread.
+     * Lists of {@link #PARALLEL_THRESHOLD} tasks or more are checked in parallel
+     * by the common fork-join pool through the spliterator of the list, if the pool has several threads.
+     *
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     * @param action the action that takes the found tasks
+     */
+    protected void forEachIncoming(long from, long to, Consumer<? super Task> action) {
+        if (size() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            Task[] found = getStream().parallel().filter(task -> isIncoming(task, from, to)).toArray(Task[]::new);
+            for (Task task : found) {
+                action.accept(task);
+            }
+            return;
+        }
+        for (Task task : this) {
+            if (isIncoming(task, from, to)) {
+                action.accept(task);
+            }
+        }
+    }
+
+    /**
+     * The method that checks whether the task is scheduled to run
+     * at least once after time <code>from</code> and no later than <code>to</code>.
+     *
+     * @param task the checked task
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     *
+     * @return <code>true</code> if the task fits the specified time period
+     */
+    static boolean isIncoming(Task task, long from, long to) {
+        long next = task.nextTimeAfter(from);
+        return next != Task.NO_TIME && next <= to;
+    }
+
     /**
      * The method that creates an object of the required type.
      *
@@ -49,9 +518,21 @@ public abstract class AbstractTaskList implements Iterable<Task>, Cloneable, Ext
      */
     protected abstract AbstractTaskList getTaskList();
 
+    /**
+     * The method that copies the list without its listeners.
+     *
+     * @return the copy of the list
+     *
+     * @throws CloneNotSupportedException if the list cannot be copied.
+     */
     @Override
     public AbstractTaskList clone() throws CloneNotSupportedException {
-        return (AbstractTaskList) super.clone();
+        AbstractTaskList clone = (AbstractTaskList) super.clone();
+        clone.listeners = new CopyOnWriteArrayList<>();
+        clone.changeDepth = 0;
+        clone.changed = false;
+        clone.pending = null;
+        return clone;
     }
 
     /**
@@ -64,21 +545,62 @@ public abstract class AbstractTaskList implements Iterable<Task>, Cloneable, Ext
     @Override
     public abstract Iterator<Task> iterator();
 
+    /**
+     * The method that writes the version of the format, the size of the list
+     * and the identifier and data of every task.
+     * The version is written as a negative number, so it is not confused with the size
+     * in the files written before identifiers.
+     *
+     * @param out the stream to write the object to
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(-EXTERNAL_VERSION);
         out.writeInt(size());
         for (Task temp : this) {
+            out.writeLong(temp.getId());
             temp.writeExternal(out);
         }
     }
 
-   @Override
+    /**
+     * The method that reads the tasks written by {@link #writeExternal(ObjectOutput)}.
+     * The tasks of files written before identifiers get new identifiers.
+     * The list is presized by the count of the stream up to {@link #MAX_STREAM_PRESIZE} tasks.
+     *
+     * @param in the stream to read data from in order to restore the object
+     *
+     * @throws IOException if was failed or interrupted I/O operations or the version is unknown.
+     * @throws ClassNotFoundException if the class for an object being restored cannot be found.
+     */
+    @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         int size = in.readInt();
-        for (int i = 0; i < size; ++i) {
-            Task temp = new Task();
-            temp.readExternal(in);
-            add(temp);
+        int version = 0;
+        if (size < 0) {
+            version = -size;
+            if (version > EXTERNAL_VERSION) {
+                throw new InvalidObjectException("Unknown version of the task list format: " + version + ".");
+            }
+            size = in.readInt();
+        }
+        if (size > 0) {
+            presize(size() + Math.min(size, MAX_STREAM_PRESIZE));
+        }
+        beginChange();
+        try {
+            for (int i = 0; i < size; ++i) {
+                Task temp = new Task();
+                if (version >= 1) {
+                    temp.setId(in.readLong());
+                }
+                temp.readExternal(in);
+                add(temp);
+            }
+        } finally {
+            endChange();
         }
     }
 }
@@ -1,16 +1,73 @@
 package bubzki.organizer.model;
 
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ArrayTaskList extends AbstractTaskList {
+    private static final long serialVersionUID = 8055119239984533267L;
     private final static int DEFAULT_CAPACITY = 10;
     private final static float RATIO = 1.5f;
+    private final static int SHRINK_LOAD = 4;
     private int size;
-    private Task[] tasks = new Task[DEFAULT_CAPACITY];
+    private int minCapacity;
+    private Task[] tasks;
+    private transient TaskIdIndex ids = new TaskIdIndex(index -> tasks[index]);
+
+    /**
+     * Constructor that creates an empty list with the default capacity.
+     */
+    public ArrayTaskList() {
+        tasks = new Task[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Constructor that creates an empty list with the specified capacity,
+     * so the list does not grow until it has more tasks than the capacity
+     * and does not shrink below it when tasks are removed.
+     *
+     * @param initialCapacity the initial capacity of the list
+     *
+     * @throws IllegalArgumentException if <code>initialCapacity</code> is negative
+     */
+    public ArrayTaskList(int initialCapacity) throws IllegalArgumentException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative.");
+        }
+        tasks = new Task[initialCapacity];
+        minCapacity = initialCapacity;
+    }
+
+    /**
+     * The method that returns the position of the first task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the position of the task or -1 if there is no such task in the list
+     */
+    @Override
+    public int indexOfId(long id) {
+        return ids.indexOf(id, size);
+    }
+
+    /**
+     * The method that removes the task with the specified position from the list and the index.
+     *
+     * @param index the position of the task
+     */
+    private void removeAt(int index) {
+        Task task = tasks[index];
+        ids.removed(index, size);
+        if (index != size - 1) {
+            System.arraycopy(tasks, index + 1, tasks, index, size - index - 1);
+        }
+        tasks[size - 1] = null;
+        size--;
+        trimCapacity();
+        fireRemoved(task);
+    }
 
     /**
      * The method that add a task to the list and
@@ -26,16 +83,17 @@ public class ArrayTaskList extends AbstractTaskList {
             throw new NullPointerException("Cannot add null pointer.");
         }
         if (size == tasks.length) {
-            Task[] tempTasks = new Task[Math.round(size * RATIO)];
-            System.arraycopy(tasks, 0, tempTasks, 0, size);
-            tasks = tempTasks;
+            grow(size + 1);
         }
         tasks[size] = task;
+        ids.added(task, size);
         size++;
+        fireAdded(task);
     }
 
     /**
      * The method that removes a task from the list.
+     * The task is found through the index of identifiers.
      * If there were several such tasks in the list,
      * it will delete such task, which was added the first.
      *
@@ -50,20 +108,101 @@ public class ArrayTaskList extends AbstractTaskList {
         if (task == null) {
             throw new NullPointerException("Cannot remove null pointer.");
         }
-        if (size != 0) {
-            for (int i = 0; i < size; ++i) {
-                if (task.equals(tasks[i])) {
-                    if (i != size - 1) {
-                        System.arraycopy(tasks, i + 1, tasks, i, size - i - 1);
-                    }
-                    tasks[size - 1] = null;
-                    size--;
-                    trimCapacity();
-                    return true;
-                }
+        return removeById(task.getId());
+    }
+
+    /**
+     * The method that removes the task with the specified identifier from the list.
+     *
+     * @param id the task identifier
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     */
+    @Override
+    public boolean removeById(long id) {
+        int index = indexOfId(id);
+        if (index == -1) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * The method that removes all tasks that satisfy the filter in one pass,
+     * moving every kept task once.
+     * The filter is checked for all tasks before the list is changed.
+     *
+     * @param filter the predicate which returns <code>true</code> for tasks that need to remove
+     *
+     * @return "true" if any task was removed
+     *
+     * @throws NullPointerException if <code>filter</code> is null pointer
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException("Filter must not be null.");
+        }
+        BitSet removed = new BitSet(size);
+        for (int i = 0; i < size; ++i) {
+            if (filter.test(tasks[i])) {
+                removed.set(i);
             }
         }
-        return false;
+        if (removed.isEmpty()) {
+            return false;
+        }
+        beginChange();
+        for (int i = removed.nextSetBit(0); i >= 0; i = removed.nextSetBit(i + 1)) {
+            fireRemoved(tasks[i]);
+        }
+        int kept = removed.nextSetBit(0);
+        for (int i = kept; i < size; ++i) {
+            if (!removed.get(i)) {
+                tasks[kept++] = tasks[i];
+            }
+        }
+        Arrays.fill(tasks, kept, size, null);
+        size = kept;
+        ids.invalidate();
+        trimCapacity();
+        endChange();
+        return true;
+    }
+
+    /**
+     * The method that replaces every task with the result of the operator in place.
+     *
+     * @param operator the operator that returns the new task for every task
+     *
+     * @throws NullPointerException if <code>operator</code> or any of its results is null pointer,
+     * in which case the list is not changed
+     */
+    @Override
+    public void replaceAll(UnaryOperator<Task> operator) throws NullPointerException {
+        Task[] replaced = replacements(operator);
+        beginChange();
+        for (int i = 0; i < size; ++i) {
+            Task oldTask = tasks[i];
+            tasks[i] = replaced[i];
+            fireReplaced(oldTask, replaced[i]);
+        }
+        ids.invalidate();
+        endChange();
+    }
+
+    /**
+     * The method that returns the task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the task with the specified identifier or <code>null</code> if there is no such task in the list
+     */
+    @Override
+    public Task getById(long id) {
+        int index = indexOfId(id);
+        return (index == -1 ? null : tasks[index]);
     }
 
     /**
@@ -77,23 +216,75 @@ public class ArrayTaskList extends AbstractTaskList {
     }
 
     /**
-     * The method that decreases array capacity by one third,
-     * if the capacity is equal or more than 1.5 times the number of elements
+     * The method that increases array capacity to 1.5 times, or to <code>minCapacity</code> if it is greater.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void grow(int minCapacity) {
+        int capacity = Math.max(Math.round(tasks.length * RATIO), DEFAULT_CAPACITY);
+        tasks = Arrays.copyOf(tasks, Math.max(capacity, minCapacity));
+    }
+
+    /**
+     * The method that decreases array capacity to 1.5 times the number of elements,
+     * if the number of elements fell to a quarter of the capacity.
+     * The array is grown at the full capacity and shrunk at a quarter of it,
+     * so adding and removing around one size do not copy the array every time.
+     * The array is never shrunk below the capacity requested by the constructor or {@link #ensureCapacity(int)}.
      */
     private void trimCapacity() {
-        if (size != 0 && ((float)tasks.length / (float)size) >= RATIO
-                && tasks.length > DEFAULT_CAPACITY) {
-            Task[] tempTasks;
-            if ((tasks.length / RATIO) <= DEFAULT_CAPACITY) {
-                tempTasks = new Task[DEFAULT_CAPACITY];
-            } else {
-                tempTasks = new Task[Math.round(tasks.length / RATIO)];
-            }
-            System.arraycopy(tasks, 0, tempTasks, 0, size);
-            tasks = tempTasks;
+        int floor = Math.max(DEFAULT_CAPACITY, minCapacity);
+        if (tasks.length > floor && size <= tasks.length / SHRINK_LOAD) {
+            tasks = Arrays.copyOf(tasks, Math.max(Math.round(size * RATIO), floor));
         }
     }
 
+    /**
+     * The method that increases array capacity, if necessary,
+     * so the list can hold at least <code>minCapacity</code> tasks without growing.
+     * The list keeps this capacity when tasks are removed, until {@link #trimToSize()}.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        this.minCapacity = Math.max(this.minCapacity, minCapacity);
+        presize(minCapacity);
+    }
+
+    /**
+     * The method that increases array capacity for a bulk operation, if necessary,
+     * without keeping this capacity when tasks are removed.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    @Override
+    void presize(int minCapacity) {
+        if (minCapacity > tasks.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * The method that decreases array capacity to the number of elements
+     * and drops the capacity requested before, so the list shrinks again when tasks are removed.
+     */
+    public void trimToSize() {
+        minCapacity = 0;
+        if (size < tasks.length) {
+            tasks = Arrays.copyOf(tasks, size);
+        }
+    }
+
+    /**
+     * Getter for the length of the array of tasks.
+     *
+     * @return the capacity of the list
+     */
+    int capacity() {
+        return tasks.length;
+    }
+
     /**
      * The method that returns the task that is at the specified location in list,
      * the first task has an index of 0.
@@ -149,7 +340,7 @@ public class ArrayTaskList extends AbstractTaskList {
                 if (currentElement == -1) {
                     throw new IllegalStateException();
                 }
-                ArrayTaskList.this.remove(tasks[currentElement]);
+                removeAt(currentElement);
                 currentElement--;
                 nextElement--;
                 size--;
@@ -195,11 +386,22 @@ public class ArrayTaskList extends AbstractTaskList {
         for (int i = 0; i < clone.size(); ++i) {
             clone.tasks[i] = clone.tasks[i].clone();
         }
+        clone.ids = new TaskIdIndex(index -> clone.tasks[index]);
         return clone;
     }
 
+    /**
+     * Returns a spliterator over the filled part of the array, which splits the range in halves.
+     *
+     * @return a Spliterator.
+     */
+    @Override
+    public Spliterator<Task> spliterator() {
+        return Spliterators.spliterator(tasks, 0, size, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
     @Override
     public Stream<Task> getStream() {
-        return Arrays.stream(this.tasks).limit(size);
+        return StreamSupport.stream(spliterator(), false);
     }
 }
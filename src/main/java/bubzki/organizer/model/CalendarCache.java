@@ -0,0 +1,343 @@
+package bubzki.organizer.model;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * The cache of calendars of a task list, keyed by the period of the calendar and the version of the list.
+ * The cache listens to the list: a change of a few tasks is applied to the cached calendars
+ * as a diff, and a larger change clears the cache. A calendar of a period that overlaps a cached one
+ * reuses the dates of the overlap and builds only the rest of the period.
+ * The least recently used calendars are evicted when the cache has more than the maximum number of calendars
+ * or the calendars keep more than the maximum number of dates and task references.
+ * The tasks changed without the methods of the list, for example by {@link Task#setTime(LocalDateTime)}
+ * instead of {@link AbstractTaskList#update(Task, Consumer)}, are not seen by the cache.
+ */
+public class CalendarCache {
+    private final static int DEFAULT_MAX_ENTRIES = 16;
+    private final static long DEFAULT_MAX_WEIGHT = 1 << 21;
+    private final static int MAX_DIFF_TASKS = 16;
+    private final AbstractTaskList list;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<Period, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Consumer<TaskListChange> listener = this::listChanged;
+    private long weight;
+    private long hits;
+    private long partialHits;
+    private long misses;
+
+    /**
+     * The class of keys of the cache: the period <code>(from, to]</code> in epoch seconds.
+     */
+    private static class Period {
+        final long from;
+        final long to;
+
+        Period(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Period period = (Period) o;
+            return from == period.from && to == period.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, to);
+        }
+    }
+
+    /**
+     * The class of cached calendars with the version of the list they were built for.
+     */
+    private static class Entry {
+        final TaskCalendar calendar;
+        final long version;
+
+        Entry(TaskCalendar calendar, long version) {
+            this.calendar = calendar;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Constructor that creates the cache of calendars of the list with the default bounds.
+     *
+     * @param list the task list
+     *
+     * @throws NullPointerException if list is null pointer
+     */
+    public CalendarCache(AbstractTaskList list) throws NullPointerException {
+        this(list, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * Constructor that creates the cache of calendars of the list.
+     *
+     * @param list the task list
+     * @param maxEntries the maximum number of cached calendars
+     * @param maxWeight the maximum number of dates and task references of all cached calendars
+     *
+     * @throws NullPointerException if list is null pointer
+     * @throws IllegalArgumentException if <code>maxEntries</code> or <code>maxWeight</code> is not positive.
+     */
+    public CalendarCache(AbstractTaskList list, int maxEntries, long maxWeight)
+            throws NullPointerException, IllegalArgumentException {
+        if (list == null) {
+            throw new NullPointerException("The task list cannot be null pointer.");
+        }
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("The bounds of the cache must be greater than zero.");
+        }
+        this.list = list;
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        list.addListener(listener);
+    }
+
+    /**
+     * The method that returns the calendar of the tasks of the list for the period,
+     * the same as {@link Tasks#calendar(Iterable, LocalDateTime, LocalDateTime)}.
+     * The calendar is taken from the cache if it has the calendar of the period for the current version of the list.
+     *
+     * @param start the start time of the period
+     * @param end the end time of the period
+     *
+     * @return sorted read-only table of tasks and their dates of realization
+     *
+     * @throws IllegalArgumentException if...
+     * <ul>
+     * <li>timestamps are <code>null</code>;</li>
+     * <li><code>start</code> is greater than <code>end</code>.</li>
+     * </ul>
+     */
+    public synchronized SortedMap<LocalDateTime, Set<Task>> calendar(LocalDateTime start, LocalDateTime end)
+            throws IllegalArgumentException {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Timestamps must equal to zero or be greater than it.");
+        }
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Time \"to\" must be greater than \"from\".");
+        }
+        long version = list.getVersion();
+        Period period = new Period(Task.toEpochSecond(start), Task.toEpochSecond(end));
+        Entry entry = entries.get(period);
+        if (entry != null && entry.version == version) {
+            hits++;
+            return entry.calendar;
+        }
+        Period overlap = null;
+        TaskCalendar overlapCalendar = null;
+        for (Map.Entry<Period, Entry> temp : entries.entrySet()) {
+            Period cached = temp.getKey();
+            if (temp.getValue().version == version && cached.from < period.to && cached.to > period.from
+                    && (overlap == null || overlapLength(cached, period) > overlapLength(overlap, period))) {
+                overlap = cached;
+                overlapCalendar = temp.getValue().calendar;
+            }
+        }
+        TaskCalendar calendar;
+        if (overlap == null) {
+            misses++;
+            calendar = build(period.from, period.to);
+        } else {
+            partialHits++;
+            entries.get(overlap);
+            long from = Math.max(period.from, overlap.from);
+            long to = Math.min(period.to, overlap.to);
+            TaskCalendar.Builder builder = (period.from < from ? build(period.from, from).slice(period.from, from)
+                    : new TaskCalendar.Builder());
+            builder.append(overlapCalendar.slice(from, to));
+            if (to < period.to) {
+                builder.append(build(to, period.to).slice(to, period.to));
+            }
+            calendar = builder.build();
+        }
+        put(period, new Entry(calendar, version));
+        return calendar;
+    }
+
+    private static long overlapLength(Period cached, Period period) {
+        return Math.min(cached.to, period.to) - Math.max(cached.from, period.from);
+    }
+
+    /**
+     * The method that builds the calendar of the tasks of the list for the period <code>(from, to]</code>.
+     *
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     *
+     * @return the calendar
+     */
+    private TaskCalendar build(long from, long to) {
+        List<Task> incoming = new ArrayList<>();
+        list.forEachIncoming(from, to, incoming::add);
+        return TaskCalendar.build(incoming, from, to);
+    }
+
+    /**
+     * The method that puts the calendar to the cache and evicts the least recently used calendars
+     * while the cache is over its bounds. The calendars heavier than the cache are not kept.
+     *
+     * @param period the period of the calendar
+     * @param entry the calendar
+     */
+    private void put(Period period, Entry entry) {
+        Entry old = entries.remove(period);
+        if (old != null) {
+            weight -= old.calendar.weight();
+        }
+        if (entry.calendar.weight() > maxWeight) {
+            return;
+        }
+        entries.put(period, entry);
+        weight += entry.calendar.weight();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries || weight > maxWeight) {
+            weight -= iterator.next().calendar.weight();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * The method that applies the change of the list to the cached calendars of the previous version.
+     * The removed tasks and the old versions of the modified tasks are taken out of the calendars,
+     * and the added and modified tasks are merged in by their positions in the list.
+     * If too many tasks were changed, the cache is cleared.
+     *
+     * @param change the change of the list
+     */
+    private synchronized void listChanged(TaskListChange change) {
+        int changed = change.getAdded().size() + change.getRemoved().size() + change.getModified().size();
+        if (changed > MAX_DIFF_TASKS) {
+            clear();
+            return;
+        }
+        Set<Task> removed = new HashSet<>(change.getRemoved());
+        List<Task> added = new ArrayList<>(change.getAdded());
+        for (TaskListChange.Modification modification : change.getModified()) {
+            removed.add(modification.getTask());
+            added.add(modification.getTask());
+        }
+        added.removeAll(change.getRemoved());
+        ListOrder order = new ListOrder(list);
+        for (Map.Entry<Period, Entry> temp : new ArrayList<>(entries.entrySet())) {
+            Period period = temp.getKey();
+            Entry entry = temp.getValue();
+            if (entry.version != change.getVersion() - 1) {
+                weight -= entry.calendar.weight();
+                entries.remove(period);
+                continue;
+            }
+            List<Task> scheduled = new ArrayList<>();
+            for (Task task : added) {
+                if (AbstractTaskList.isIncoming(task, period.from, period.to)) {
+                    scheduled.add(task);
+                }
+            }
+            TaskCalendar calendar = entry.calendar;
+            if (!scheduled.isEmpty() || calendar.containsAny(removed)) {
+                calendar = calendar.update(removed, scheduled.toArray(new Task[0]), period.from, period.to, order);
+            }
+            weight += calendar.weight() - entry.calendar.weight();
+            temp.setValue(new Entry(calendar, change.getVersion()));
+        }
+    }
+
+    /**
+     * The class that gives the positions of the tasks in the list. The positions are found by one pass
+     * over the list when the first of them is requested, so a change that only removes tasks does not visit the list.
+     * A task that occurs several times has the position of the first occurrence,
+     * and a task that is not in the list is after all others.
+     */
+    private static class ListOrder implements ToIntFunction<Task> {
+        private final Iterable<Task> list;
+        private Map<Task, Integer> positions;
+
+        ListOrder(Iterable<Task> list) {
+            this.list = list;
+        }
+
+        @Override
+        public int applyAsInt(Task task) {
+            if (positions == null) {
+                positions = new HashMap<>();
+                int position = 0;
+                for (Task next : list) {
+                    positions.putIfAbsent(next, position++);
+                }
+            }
+            return positions.getOrDefault(task, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * The method that removes all calendars from the cache. The counters are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * The method that stops listening to the list and clears the cache.
+     */
+    public synchronized void close() {
+        list.removeListener(listener);
+        clear();
+    }
+
+    /**
+     * Getter for the number of cached calendars.
+     *
+     * @return the number of calendars
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Getter for the number of requests answered with a cached calendar.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter for the number of requests answered with a calendar that reused an overlapping cached calendar.
+     *
+     * @return the number of partial hits
+     */
+    public synchronized long getPartialHits() {
+        return partialHits;
+    }
+
+    /**
+     * Getter for the number of requests answered with a calendar built from the list.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CalendarCache(" + entries.size() + "): hits " + hits + ", partial hits " + partialHits
+                + ", misses " + misses;
+    }
+}
@@ -0,0 +1,66 @@
+package bubzki.organizer.model;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * The page of a calendar of tasks - the first dates of a period, as many as fit the bounds of the page.
+ * The page has the cursor of the next page: the last date of the page, after which the next page starts.
+ *
+ * @see Tasks#calendarPage(Iterable, LocalDateTime, LocalDateTime, int, long)
+ */
+public class CalendarPage {
+    private final TaskCalendar calendar;
+    private final LocalDateTime next;
+    private final long occurrences;
+
+    CalendarPage(TaskCalendar calendar, LocalDateTime next, long occurrences) {
+        this.calendar = calendar;
+        this.next = next;
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * Getter for the calendar of the page.
+     *
+     * @return sorted read-only table of tasks and their dates of realization
+     */
+    public SortedMap<LocalDateTime, Set<Task>> getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Getter for the number of executions of the tasks on the page.
+     *
+     * @return the number of executions
+     */
+    public long getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * The method that checks whether the period has dates after this page.
+     *
+     * @return <code>true</code> if there is the next page
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Getter for the cursor of the next page - the last date of this page.
+     * The next page is requested with this date as the start of the period.
+     *
+     * @return the start time of the next page or <code>null</code> if this page is the last one
+     */
+    public LocalDateTime getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "CalendarPage(" + calendar.size() + " dates, " + occurrences + " executions)"
+                + (next == null ? "" : ": next after " + next);
+    }
+}
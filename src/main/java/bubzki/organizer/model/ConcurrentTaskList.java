@@ -0,0 +1,440 @@
+package bubzki.organizer.model;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The thread-safe task list that can be shared between the UI and background threads.
+ * Readers take an immutable snapshot of the list without locking,
+ * and iterators never fail because of concurrent changes.
+ * Writers are serialized by a lock, and the changes are published to the listeners under it, in order.
+ * Adding appends to the array behind the published size, where no snapshot can see it,
+ * so it costs amortized O(1);
+ * removing copies the array, so the older snapshots are not changed.
+ * The index of identifiers, which finds the tasks to remove and update, is changed only by writers under the lock.
+ */
+public class ConcurrentTaskList extends AbstractTaskList {
+    private static final long serialVersionUID = 1L;
+    private final static int DEFAULT_CAPACITY = 10;
+    private final static float RATIO = 1.5f;
+    private final transient Object lock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(new Task[DEFAULT_CAPACITY], 0);
+    private final transient TaskIdIndex ids = new TaskIdIndex(index -> snapshot.tasks[index]);
+
+    /**
+     * The class of snapshots of the list. The first <code>size</code> elements of the array
+     * are never changed after the snapshot was published.
+     */
+    private static class Snapshot {
+        final Task[] tasks;
+        final int size;
+
+        Snapshot(Task[] tasks, int size) {
+            this.tasks = tasks;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The method that add a task to the list.
+     *
+     * @param task a specified task that needs to add
+     *
+     * @throws NullPointerException if task is null pointer
+     */
+    @Override
+    public void add(Task task) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Cannot add null pointer.");
+        }
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            Task[] tasks = current.tasks;
+            if (current.size == tasks.length) {
+                tasks = Arrays.copyOf(tasks, Math.round(current.size * RATIO));
+            }
+            tasks[current.size] = task;
+            snapshot = new Snapshot(tasks, current.size + 1);
+            ids.added(task, current.size);
+            fireAdded(task);
+        }
+    }
+
+    /**
+     * The method that adds all tasks to the end of the list at once,
+     * so readers see either none or all of them.
+     *
+     * @param tasks the tasks that need to add
+     *
+     * @return "true" if the list was changed
+     *
+     * @throws NullPointerException if <code>tasks</code> or any of the tasks is null pointer,
+     * in which case the list is not changed
+     */
+    @Override
+    public boolean addAll(Iterable<? extends Task> tasks) throws NullPointerException {
+        Task[] added = toArray(tasks);
+        if (added.length == 0) {
+            return false;
+        }
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            Task[] array = current.tasks;
+            int size = current.size + added.length;
+            if (size > array.length) {
+                array = Arrays.copyOf(array, Math.max(size, Math.round(array.length * RATIO)));
+            }
+            System.arraycopy(added, 0, array, current.size, added.length);
+            snapshot = new Snapshot(array, size);
+            for (int i = 0; i < added.length; ++i) {
+                ids.added(added[i], current.size + i);
+            }
+            beginChange();
+            for (Task task : added) {
+                fireAdded(task);
+            }
+            endChange();
+        }
+        return true;
+    }
+
+    /**
+     * The method that removes all tasks that satisfy the filter at once,
+     * so readers see either none or all of the removals.
+     *
+     * @param filter the predicate which returns <code>true</code> for tasks that need to remove
+     *
+     * @return "true" if any task was removed
+     *
+     * @throws NullPointerException if <code>filter</code> is null pointer
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException("Filter must not be null.");
+        }
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            Task[] tasks = new Task[Math.max(current.tasks.length, DEFAULT_CAPACITY)];
+            List<Task> removed = new ArrayList<>();
+            int kept = 0;
+            for (int i = 0; i < current.size; ++i) {
+                if (filter.test(current.tasks[i])) {
+                    removed.add(current.tasks[i]);
+                } else {
+                    tasks[kept++] = current.tasks[i];
+                }
+            }
+            if (kept == current.size) {
+                return false;
+            }
+            snapshot = new Snapshot(tasks, kept);
+            ids.invalidate();
+            beginChange();
+            for (Task task : removed) {
+                fireRemoved(task);
+            }
+            endChange();
+        }
+        return true;
+    }
+
+    /**
+     * The method that replaces every task with the result of the operator at once.
+     *
+     * @param operator the operator that returns the new task for every task
+     *
+     * @throws NullPointerException if <code>operator</code> or any of its results is null pointer,
+     * in which case the list is not changed
+     */
+    @Override
+    public void replaceAll(UnaryOperator<Task> operator) throws NullPointerException {
+        if (operator == null) {
+            throw new NullPointerException("Operator must not be null.");
+        }
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            Task[] tasks = new Task[current.tasks.length];
+            for (int i = 0; i < current.size; ++i) {
+                tasks[i] = operator.apply(current.tasks[i]);
+                if (tasks[i] == null) {
+                    throw new NullPointerException("Cannot replace a task with null pointer.");
+                }
+            }
+            snapshot = new Snapshot(tasks, current.size);
+            ids.invalidate();
+            beginChange();
+            for (int i = 0; i < current.size; ++i) {
+                fireReplaced(current.tasks[i], tasks[i]);
+            }
+            endChange();
+        }
+    }
+
+    /**
+     * The method that increases array capacity, if necessary,
+     * so the list can hold at least <code>minCapacity</code> tasks without growing.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            if (minCapacity > current.tasks.length) {
+                snapshot = new Snapshot(Arrays.copyOf(current.tasks, minCapacity), current.size);
+            }
+        }
+    }
+
+    /**
+     * The method that removes a task from the list.
+     * The task is found through the index of identifiers.
+     * If there were several such tasks in the list,
+     * it will delete such task, which was added the first.
+     *
+     * @param task a specified task that needs to remove
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     *
+     * @throws NullPointerException if task is null pointer
+     */
+    @Override
+    public boolean remove(Task task) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Cannot remove null pointer.");
+        }
+        return removeById(task.getId());
+    }
+
+    /**
+     * The method that removes the task with the specified identifier from the list.
+     *
+     * @param id the task identifier
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     */
+    @Override
+    public boolean removeById(long id) {
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            int index = ids.indexOf(id, current.size);
+            if (index == -1) {
+                return false;
+            }
+            ids.removed(index, current.size);
+            Task[] tasks = new Task[Math.max(current.tasks.length, DEFAULT_CAPACITY)];
+            System.arraycopy(current.tasks, 0, tasks, 0, index);
+            System.arraycopy(current.tasks, index + 1, tasks, index, current.size - index - 1);
+            snapshot = new Snapshot(tasks, current.size - 1);
+            fireRemoved(current.tasks[index]);
+            return true;
+        }
+    }
+
+    /**
+     * The method that returns the position of the first task with the specified identifier.
+     * The index of identifiers is changed by writers, so the lookup takes their lock.
+     *
+     * @param id the task identifier
+     *
+     * @return the position of the task or -1 if there is no such task in the list
+     */
+    @Override
+    public int indexOfId(long id) {
+        synchronized (lock) {
+            return ids.indexOf(id, snapshot.size);
+        }
+    }
+
+    /**
+     * The method that returns the task with the specified identifier.
+     * The index of identifiers is changed by writers, so the lookup takes their lock.
+     *
+     * @param id the task identifier
+     *
+     * @return the task with the specified identifier or <code>null</code> if there is no such task in the list
+     */
+    @Override
+    public Task getById(long id) {
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            int index = ids.indexOf(id, current.size);
+            return (index == -1 ? null : current.tasks[index]);
+        }
+    }
+
+    /**
+     * The method that changes the task of this list in place under the lock of writers,
+     * so its modification is published in order with the other changes.
+     *
+     * @param task the task of this list
+     * @param change the action that changes the task
+     *
+     * @return "true" if the task is in the list, "false" if the task not on the list, in which case it is not changed
+     *
+     * @throws NullPointerException if <code>task</code> or <code>change</code> is null pointer
+     */
+    @Override
+    public boolean update(Task task, Consumer<? super Task> change) throws NullPointerException {
+        synchronized (lock) {
+            return super.update(task, change);
+        }
+    }
+
+    /**
+     * The method that copies the tasks of the list under the lock of writers,
+     * so no task is copied in the middle of its update.
+     *
+     * @return the list of copies of the tasks
+     */
+    @Override
+    List<Task> copyTasks() {
+        synchronized (lock) {
+            return super.copyTasks();
+        }
+    }
+
+    /**
+     * The method that returns the number of tasks in the list.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * The method that returns the task that is at the specified location in list,
+     * the first task has an index of 0.
+     *
+     * @param index the specified task index
+     *
+     * @return a task with the specified index
+     *
+     * @throws IndexOutOfBoundsException if index is out of the list range.
+     */
+    @Override
+    public Task getTask(int index) throws IndexOutOfBoundsException {
+        Snapshot current = snapshot;
+        if (index >= current.size) {
+            throw new IndexOutOfBoundsException("The index is out of range.");
+        }
+        return current.tasks[index];
+    }
+
+    @Override
+    protected ConcurrentTaskList getTaskList() {
+        return new ConcurrentTaskList();
+    }
+
+    /**
+     * Returns an iterator over the snapshot of the list at the moment of the call.
+     * The iterator is not affected by later changes of the list.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        Snapshot current = snapshot;
+        return new Iterator<Task>() {
+            private int currentElement = -1;
+            private int nextElement;
+
+            @Override
+            public boolean hasNext() {
+                return nextElement < current.size;
+            }
+
+            @Override
+            public Task next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iteration has no more elements.");
+                }
+                currentElement = nextElement++;
+                return current.tasks[currentElement];
+            }
+
+            @Override
+            public void remove() throws IllegalStateException {
+                if (currentElement == -1) {
+                    throw new IllegalStateException();
+                }
+                ConcurrentTaskList.this.remove(current.tasks[currentElement]);
+                currentElement = -1;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder tempString = new StringBuilder("ConcurrentTaskList(" + size() + "): [");
+        Snapshot current = snapshot;
+        if (current.size > 0) {
+            for (int i = 0; i < current.size; ++i) {
+                tempString.append(current.tasks[i].toString()).append(";").append("\n\t\t\t\t\t");
+            }
+            tempString.delete(tempString.length() - 7, tempString.length());
+        }
+        return tempString.append("]").toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        Snapshot other = ((ConcurrentTaskList) o).snapshot;
+        return current.size == other.size
+                && Arrays.equals(current.tasks, 0, current.size, other.tasks, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        Snapshot current = snapshot;
+        int result = Objects.hash(current.size);
+        for (int i = 0; i < current.size; ++i) {
+            result = 31 * result + current.tasks[i].hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public ConcurrentTaskList clone() throws CloneNotSupportedException {
+        ConcurrentTaskList clone = new ConcurrentTaskList();
+        Snapshot current = snapshot;
+        Task[] tasks = new Task[Math.max(current.size, DEFAULT_CAPACITY)];
+        for (int i = 0; i < current.size; ++i) {
+            tasks[i] = current.tasks[i].clone();
+        }
+        clone.snapshot = new Snapshot(tasks, current.size);
+        return clone;
+    }
+
+    /**
+     * Returns a spliterator over the snapshot of the list at the moment of the call,
+     * which splits the range in halves.
+     *
+     * @return a Spliterator.
+     */
+    @Override
+    public Spliterator<Task> spliterator() {
+        Snapshot current = snapshot;
+        return Spliterators.spliterator(current.tasks, 0, current.size,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public Stream<Task> getStream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
@@ -0,0 +1,605 @@
+package bubzki.organizer.model;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * The task list that keeps, besides the order of tasks, an augmented interval tree
+ * keyed on the span <code>[start, end]</code> of every task.
+ * The search of incoming tasks visits only the tasks whose span overlaps the period,
+ * so it costs O(log n + k) instead of a full scan.
+ * The tasks report the changes of their schedules to the list, and the node of a changed task
+ * is moved in the tree at once for O(log n), so a change of a task is a change of the list
+ * and the search only reads the tree.
+ */
+public class IndexedTaskList extends AbstractTaskList {
+    private static final long serialVersionUID = 1L;
+    private final static int DEFAULT_CAPACITY = 10;
+    private final static float RATIO = 1.5f;
+    private int size;
+    private Node[] nodes = new Node[DEFAULT_CAPACITY];
+    private Node root;
+    private long sequence;
+    private transient TaskIdIndex ids = new TaskIdIndex(index -> nodes[index].task);
+
+    /**
+     * The class for creating nodes of the interval tree (treap).
+     * A node keeps the task span at the moment of indexing, because tasks can be changed
+     * after they were added to the list, and the maximum end of the span in its subtree.
+     * The node listens to the schedule of its task and is moved in the tree of its list when it changes.
+     */
+    private static class Node implements Task.ScheduleListener {
+        final IndexedTaskList list;
+        final Task task;
+        final long sequence;
+        final int priority;
+        long start;
+        long end;
+        int scheduleVersion;
+        long maxEnd;
+        Node left;
+        Node right;
+        boolean removed;
+
+        /**
+         * Constructor that creates a <code>node</code> with the current span of the task
+         * and starts listening to the schedule of the task.
+         *
+         * @param list the list of the node
+         * @param task the element of {@link Task} type
+         * @param sequence the number of the node in the order of adding
+         */
+        Node(IndexedTaskList list, Task task, long sequence) {
+            this.list = list;
+            this.task = task;
+            this.sequence = sequence;
+            this.priority = mix(sequence);
+            reindex();
+            task.addScheduleListener(this);
+        }
+
+        /**
+         * The method that moves the node in the tree of its list by the changed schedule of the task.
+         *
+         * @param task the changed task
+         */
+        @Override
+        public void scheduleChanged(Task task) {
+            if (!removed) {
+                list.reindexNode(this);
+            }
+        }
+
+        /**
+         * The method that marks the node as removed from its list and stops listening to the task.
+         */
+        void unlink() {
+            removed = true;
+            task.removeScheduleListener(this);
+        }
+
+        /**
+         * The method that takes the current span of the task.
+         */
+        void reindex() {
+            start = task.getStartEpochSecond();
+            end = task.getEndEpochSecond();
+            scheduleVersion = task.getScheduleVersion();
+            maxEnd = end;
+        }
+
+        /**
+         * The method that compares the keys of nodes.
+         *
+         * @param other the other node
+         *
+         * @return a negative number, zero or a positive number if this node is less than, equal to or greater than other
+         */
+        int compareKey(Node other) {
+            int result = Long.compare(start, other.start);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+
+        /**
+         * The method that recalculates the maximum end of the span in the subtree.
+         */
+        void update() {
+            long max = end;
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            maxEnd = max;
+        }
+
+        /**
+         * The method that mixes the number of the node into a pseudo-random priority.
+         *
+         * @param value the number of the node
+         *
+         * @return the priority of the node
+         */
+        private static int mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+            value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+            return (int) (value ^ (value >>> 31));
+        }
+    }
+
+    /**
+     * The method that inserts a node into the subtree.
+     *
+     * @param subtree the root of the subtree
+     * @param node the inserted node
+     *
+     * @return the new root of the subtree
+     */
+    private static Node insert(Node subtree, Node node) {
+        if (subtree == null) {
+            return node;
+        }
+        if (node.compareKey(subtree) < 0) {
+            subtree.left = insert(subtree.left, node);
+            if (subtree.left.priority > subtree.priority) {
+                subtree = rotateRight(subtree);
+            }
+        } else {
+            subtree.right = insert(subtree.right, node);
+            if (subtree.right.priority > subtree.priority) {
+                subtree = rotateLeft(subtree);
+            }
+        }
+        subtree.update();
+        return subtree;
+    }
+
+    /**
+     * The method that deletes a node from the subtree.
+     *
+     * @param subtree the root of the subtree
+     * @param node the deleted node
+     *
+     * @return the new root of the subtree
+     */
+    private static Node delete(Node subtree, Node node) {
+        if (subtree == null) {
+            return null;
+        }
+        if (subtree == node) {
+            return merge(subtree.left, subtree.right);
+        }
+        if (node.compareKey(subtree) < 0) {
+            subtree.left = delete(subtree.left, node);
+        } else {
+            subtree.right = delete(subtree.right, node);
+        }
+        subtree.update();
+        return subtree;
+    }
+
+    /**
+     * The method that merges two subtrees, where all keys of <code>left</code> are less than keys of <code>right</code>.
+     *
+     * @param left the left subtree
+     * @param right the right subtree
+     *
+     * @return the root of the merged subtree
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    /**
+     * The method that collects the nodes whose span overlaps the period <code>(from, to]</code>.
+     *
+     * @param subtree the root of the subtree
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     * @param found the list that takes the nodes
+     */
+    private static void collect(Node subtree, long from, long to, List<Node> found) {
+        if (subtree == null || subtree.maxEnd <= from) {
+            return;
+        }
+        collect(subtree.left, from, to, found);
+        if (subtree.start <= to) {
+            if (subtree.end > from) {
+                found.add(subtree);
+            }
+            collect(subtree.right, from, to, found);
+        }
+    }
+
+    /**
+     * The method that moves the node in the tree if the schedule of its task was changed since its indexing.
+     *
+     * @param node the node
+     */
+    private void reindexNode(Node node) {
+        if (node.scheduleVersion != node.task.getScheduleVersion()) {
+            root = delete(root, node);
+            node.left = null;
+            node.right = null;
+            node.reindex();
+            root = insert(root, node);
+        }
+    }
+
+    /**
+     * The method that add a task to the list and the index.
+     *
+     * @param task a specified task that needs to add
+     *
+     * @throws NullPointerException if task is null pointer
+     */
+    @Override
+    public void add(Task task) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Cannot add null pointer.");
+        }
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.round(size * RATIO));
+        }
+        Node node = new Node(this, task, sequence++);
+        nodes[size] = node;
+        ids.added(task, size);
+        size++;
+        root = insert(root, node);
+        fireAdded(task);
+    }
+
+    /**
+     * The method that increases array capacity, if necessary,
+     * so the list can hold at least <code>minCapacity</code> tasks without growing.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > nodes.length) {
+            nodes = Arrays.copyOf(nodes, minCapacity);
+        }
+    }
+
+    /**
+     * The method that removes a task from the list and the index.
+     * The task is found through the index of identifiers.
+     * If there were several such tasks in the list,
+     * it will delete such task, which was added the first.
+     *
+     * @param task a specified task that needs to remove
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     *
+     * @throws NullPointerException if task is null pointer
+     */
+    @Override
+    public boolean remove(Task task) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Cannot remove null pointer.");
+        }
+        return removeById(task.getId());
+    }
+
+    /**
+     * The method that removes the task with the specified identifier from the list and the index.
+     *
+     * @param id the task identifier
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     */
+    @Override
+    public boolean removeById(long id) {
+        int index = ids.indexOf(id, size);
+        if (index == -1) {
+            return false;
+        }
+        removeNode(index);
+        return true;
+    }
+
+    /**
+     * The method that returns the position of the first task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the position of the task or -1 if there is no such task in the list
+     */
+    @Override
+    public int indexOfId(long id) {
+        return ids.indexOf(id, size);
+    }
+
+    /**
+     * The method that returns the task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the task with the specified identifier or <code>null</code> if there is no such task in the list
+     */
+    @Override
+    public Task getById(long id) {
+        int index = ids.indexOf(id, size);
+        return (index == -1 ? null : nodes[index].task);
+    }
+
+    /**
+     * The method that removes all tasks that satisfy the filter in one pass over the array.
+     * The filter is checked for all tasks before the list is changed.
+     *
+     * @param filter the predicate which returns <code>true</code> for tasks that need to remove
+     *
+     * @return "true" if any task was removed
+     *
+     * @throws NullPointerException if <code>filter</code> is null pointer
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException("Filter must not be null.");
+        }
+        BitSet removed = new BitSet(size);
+        for (int i = 0; i < size; ++i) {
+            if (filter.test(nodes[i].task)) {
+                removed.set(i);
+            }
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+        int kept = 0;
+        beginChange();
+        for (int i = 0; i < size; ++i) {
+            if (removed.get(i)) {
+                root = delete(root, nodes[i]);
+                nodes[i].unlink();
+                fireRemoved(nodes[i].task);
+            } else {
+                nodes[kept++] = nodes[i];
+            }
+        }
+        Arrays.fill(nodes, kept, size, null);
+        size = kept;
+        ids.invalidate();
+        endChange();
+        return true;
+    }
+
+    /**
+     * The method that replaces every task with the result of the operator,
+     * keeping the order of the list.
+     *
+     * @param operator the operator that returns the new task for every task
+     *
+     * @throws NullPointerException if <code>operator</code> or any of its results is null pointer,
+     * in which case the list is not changed
+     */
+    @Override
+    public void replaceAll(UnaryOperator<Task> operator) throws NullPointerException {
+        Task[] replaced = replacements(operator);
+        beginChange();
+        for (int i = 0; i < size; ++i) {
+            Task oldTask = nodes[i].task;
+            root = delete(root, nodes[i]);
+            nodes[i].unlink();
+            nodes[i] = new Node(this, replaced[i], nodes[i].sequence);
+            root = insert(root, nodes[i]);
+            fireReplaced(oldTask, replaced[i]);
+        }
+        ids.invalidate();
+        endChange();
+    }
+
+    /**
+     * The method that removes the node with the specified index from the list and the index.
+     *
+     * @param index the index of the node
+     */
+    private void removeNode(int index) {
+        Task task = nodes[index].task;
+        ids.removed(index, size);
+        root = delete(root, nodes[index]);
+        nodes[index].unlink();
+        System.arraycopy(nodes, index + 1, nodes, index, size - index - 1);
+        nodes[--size] = null;
+        fireRemoved(task);
+    }
+
+    /**
+     * The method that returns the number of tasks in the list.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The method that returns the task that is at the specified location in list,
+     * the first task has an index of 0.
+     *
+     * @param index the specified task index
+     *
+     * @return a task with the specified index
+     *
+     * @throws IndexOutOfBoundsException if index is out of the list range.
+     */
+    @Override
+    public Task getTask(int index) throws IndexOutOfBoundsException {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("The index is out of range.");
+        }
+        return nodes[index].task;
+    }
+
+    /**
+     * The method that performs the action for each incoming task found through the interval tree.
+     * Only the tasks whose span overlaps the period are checked.
+     * The search does not change the list, so several threads can search while the list is not changed.
+     *
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     * @param action the action that takes the found tasks
+     */
+    @Override
+    protected void forEachIncoming(long from, long to, Consumer<? super Task> action) {
+        List<Node> found = new ArrayList<>();
+        collect(root, from, to, found);
+        found.sort(Comparator.comparingLong(node -> node.sequence));
+        for (Node node : found) {
+            if (isIncoming(node.task, from, to)) {
+                action.accept(node.task);
+            }
+        }
+    }
+
+    @Override
+    protected IndexedTaskList getTaskList() {
+        return new IndexedTaskList();
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Task}.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<Task>() {
+            private int currentElement = -1;
+            private int nextElement;
+
+            @Override
+            public boolean hasNext() {
+                return nextElement < size;
+            }
+
+            @Override
+            public Task next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iteration has no more elements.");
+                }
+                currentElement = nextElement++;
+                return nodes[currentElement].task;
+            }
+
+            @Override
+            public void remove() throws IllegalStateException {
+                if (currentElement == -1) {
+                    throw new IllegalStateException();
+                }
+                removeNode(currentElement);
+                nextElement = currentElement;
+                currentElement = -1;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder tempString = new StringBuilder("IndexedTaskList(" + size() + "): [");
+        if (size() > 0) {
+            for (Task temp : this) {
+                tempString.append(temp.toString()).append(";").append("\n\t\t\t\t\t");
+            }
+            tempString.delete(tempString.length() - 7, tempString.length());
+        }
+        return tempString.append("]").toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        IndexedTaskList tempIndexed = (IndexedTaskList) o;
+        if (size != tempIndexed.size) {
+            return false;
+        }
+        for (int i = 0; i < size; ++i) {
+            if (!nodes[i].task.equals(tempIndexed.nodes[i].task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(size);
+        for (int i = 0; i < size; ++i) {
+            result = 31 * result + nodes[i].task.hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public IndexedTaskList clone() throws CloneNotSupportedException {
+        IndexedTaskList clone = (IndexedTaskList) super.clone();
+        clone.nodes = new Node[nodes.length];
+        clone.ids = new TaskIdIndex(index -> clone.nodes[index].task);
+        clone.size = 0;
+        clone.root = null;
+        clone.sequence = 0;
+        for (int i = 0; i < size; ++i) {
+            clone.add(nodes[i].task.clone());
+        }
+        return clone;
+    }
+
+    /**
+     * Returns a spliterator over the array of nodes, which splits the range in halves.
+     *
+     * @return a Spliterator.
+     */
+    @Override
+    public Spliterator<Task> spliterator() {
+        return getStream().spliterator();
+    }
+
+    @Override
+    public Stream<Task> getStream() {
+        return Arrays.stream(nodes, 0, size).map(node -> node.task);
+    }
+}
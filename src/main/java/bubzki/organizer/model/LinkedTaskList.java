@@ -1,13 +1,19 @@
 package bubzki.organizer.model;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class LinkedTaskList extends AbstractTaskList {
+    private static final long serialVersionUID = -697823154686483861L;
     private int size;
     private Node first;
     private Node last;
+    private transient Map<Long, Node> nodes = new HashMap<>();
+    private transient int duplicates;
 
     /**
      * The class for creating nodes that are components of a linked list.
@@ -107,9 +113,52 @@ public class LinkedTaskList extends AbstractTaskList {
         } else {
             last.next = newNode;
         }
+        if (nodes.putIfAbsent(item.getId(), newNode) != null) {
+            duplicates++;
+        }
         size++;
     }
 
+    /**
+     * The method that deletes a node from the list and the index of identifiers.
+     * If the list has other tasks with the same identifier, the index takes the next of them.
+     *
+     * @param node the node that should be deleted
+     */
+    private void removeNode(Node node) {
+        Task task = node.item;
+        Long id = task.getId();
+        if (nodes.get(id) == node) {
+            nodes.remove(id);
+            if (duplicates > 0) {
+                for (Node temp = node.next; temp != null; temp = temp.next) {
+                    if (temp.item.getId() == id) {
+                        nodes.put(id, temp);
+                        duplicates--;
+                        break;
+                    }
+                }
+            }
+        } else {
+            duplicates--;
+        }
+        deleteNode(node);
+        fireRemoved(task);
+    }
+
+    /**
+     * The method that rebuilds the index of identifiers from the nodes.
+     */
+    private void reindex() {
+        nodes = new HashMap<>();
+        duplicates = 0;
+        for (Node temp = first; temp != null; temp = temp.next) {
+            if (nodes.putIfAbsent(temp.item.getId(), temp) != null) {
+                duplicates++;
+            }
+        }
+    }
+
     /**
      * The method that deletes a non-null node with the specified task.
      *
@@ -152,10 +201,12 @@ public class LinkedTaskList extends AbstractTaskList {
             throw new NullPointerException("Cannot add null pointer.");
         }
         createNode(task);
+        fireAdded(task);
     }
 
     /**
      * The method that removes a task from the list.
+     * The task is found through the index of identifiers.
      * If there were several such tasks in the list,
      * it will delete such task, which was added the first.
      *
@@ -169,15 +220,102 @@ public class LinkedTaskList extends AbstractTaskList {
         if (task == null) {
             throw new NullPointerException("Cannot remove null pointer.");
         }
-        if (size != 0) {
-            for (Node temp = first; temp != null; temp = temp.next) {
-                if (task.equals(temp.item)) {
-                    deleteNode(temp);
-                    return true;
-                }
+        return removeById(task.getId());
+    }
+
+    /**
+     * The method that removes the task with the specified identifier from the list.
+     *
+     * @param id the task identifier
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     */
+    @Override
+    public boolean removeById(long id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return false;
+        }
+        removeNode(node);
+        return true;
+    }
+
+    /**
+     * The method that removes all tasks that satisfy the filter in one pass over the nodes.
+     * The filter is checked for all tasks before the list is changed.
+     *
+     * @param filter the predicate which returns <code>true</code> for tasks that need to remove
+     *
+     * @return "true" if any task was removed
+     *
+     * @throws NullPointerException if <code>filter</code> is null pointer
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException("Filter must not be null.");
+        }
+        List<Node> removed = new ArrayList<>();
+        for (Node temp = first; temp != null; temp = temp.next) {
+            if (filter.test(temp.item)) {
+                removed.add(temp);
             }
         }
-        return false;
+        if (removed.isEmpty()) {
+            return false;
+        }
+        beginChange();
+        for (Node node : removed) {
+            Task task = node.item;
+            Long id = task.getId();
+            if (nodes.get(id) == node) {
+                nodes.remove(id);
+            } else {
+                duplicates--;
+            }
+            deleteNode(node);
+            fireRemoved(task);
+        }
+        if (duplicates > 0) {
+            reindex();
+        }
+        endChange();
+        return true;
+    }
+
+    /**
+     * The method that replaces every task with the result of the operator in place.
+     *
+     * @param operator the operator that returns the new task for every task
+     *
+     * @throws NullPointerException if <code>operator</code> or any of its results is null pointer,
+     * in which case the list is not changed
+     */
+    @Override
+    public void replaceAll(UnaryOperator<Task> operator) throws NullPointerException {
+        Task[] replaced = replacements(operator);
+        int i = 0;
+        beginChange();
+        for (Node temp = first; temp != null; temp = temp.next) {
+            Task oldTask = temp.item;
+            temp.item = replaced[i++];
+            fireReplaced(oldTask, temp.item);
+        }
+        reindex();
+        endChange();
+    }
+
+    /**
+     * The method that returns the task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the task with the specified identifier or <code>null</code> if there is no such task in the list
+     */
+    @Override
+    public Task getById(long id) {
+        Node node = nodes.get(id);
+        return (node == null ? null : node.item);
     }
 
     /**
@@ -244,7 +382,7 @@ public class LinkedTaskList extends AbstractTaskList {
                 if (currentElement == null) {
                     throw new IllegalStateException();
                 }
-                LinkedTaskList.this.remove(currentElement.item);
+                removeNode(currentElement);
                 currentElement = null;
             }
         };
@@ -303,12 +441,84 @@ public class LinkedTaskList extends AbstractTaskList {
             clone.first = first.nodeClone();
             clone.last = clone.first.lastNodeClone();
         }
+        clone.reindex();
         return clone;
     }
 
+    /**
+     * Returns a spliterator over the nodes of the list, which splits the remaining nodes in halves.
+     *
+     * @return a Spliterator.
+     */
     @Override
     public Spliterator<Task> spliterator() {
-        return Spliterators.spliterator(iterator(), size, Spliterator.SIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        return new NodeSpliterator(first, size);
+    }
+
+    /**
+     * The spliterator over a range of nodes. Splitting walks to the middle of the range,
+     * so the parts have exact sizes and no tasks are copied.
+     */
+    private static class NodeSpliterator implements Spliterator<Task> {
+        private Node current;
+        private int remaining;
+
+        /**
+         * Constructor that creates the spliterator over <code>remaining</code> nodes
+         * starting from <code>current</code>.
+         *
+         * @param current the first node
+         * @param remaining the number of nodes
+         */
+        NodeSpliterator(Node current, int remaining) {
+            this.current = current;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Task> action) {
+            if (remaining <= 0) {
+                return false;
+            }
+            Task task = current.item;
+            current = current.next;
+            remaining--;
+            action.accept(task);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Task> action) {
+            for (; remaining > 0; remaining--) {
+                Task task = current.item;
+                current = current.next;
+                action.accept(task);
+            }
+        }
+
+        @Override
+        public Spliterator<Task> trySplit() {
+            int half = remaining >>> 1;
+            if (half == 0) {
+                return null;
+            }
+            NodeSpliterator prefix = new NodeSpliterator(current, half);
+            for (int i = 0; i < half; ++i) {
+                current = current.next;
+            }
+            remaining -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
     }
 
     @Override
@@ -2,6 +2,6 @@ package bubzki.organizer.model;
 
 public class ListTypes {
     public enum types{
-        ARRAY, LINKED
+        ARRAY, LINKED, INDEXED, CONCURRENT, UNROLLED
     }
 }
@@ -2,16 +2,43 @@ package bubzki.organizer.model;
 
 import java.io.*;
 import java.time.*;
-import java.util.Objects;
+import java.lang.ref.WeakReference;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * The task of the organizer.
+ * Timestamps are kept as epoch seconds (local date-time at {@link ZoneOffset#UTC}),
+ * so the precision of a task is one second;
+ * {@link LocalDateTime} objects are created only by the getters.
+ * A non-repeating task keeps its <code>time</code> in both <code>start</code> and <code>end</code>.
+ * Every task has a stable identifier which is kept by copies and saved files,
+ * so two tasks with the same data are still different tasks.
+ */
 public class Task implements Cloneable, Externalizable {
+    /**
+     * The value returned by the primitive methods when there is no such time.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private long id = NEXT_ID.getAndIncrement();
     private String title;
-    private LocalDateTime time;
-    private LocalDateTime start;
-    private LocalDateTime end;
-    private Duration interval;
+    private long start;
+    private long end;
+    private int interval;
     private boolean active;
     private boolean repeated;
+    private int scheduleVersion;
+    private transient volatile List<WeakReference<ScheduleListener>> scheduleListeners;
 
     /**
      * Default constructor for serialization.
@@ -34,7 +61,8 @@ public class Task implements Cloneable, Externalizable {
             throw new IllegalArgumentException("Time must not be null.");
         }
         this.title = title;
-        this.time = time;
+        this.start = toEpochSecond(time);
+        this.end = this.start;
         this.active = false;
         this.repeated = false;
     }
@@ -67,13 +95,70 @@ public class Task implements Cloneable, Externalizable {
             throw new IllegalArgumentException("Interval must be greater than zero.");
         }
         this.title = title;
-        this.start = start;
-        this.end = end;
-        this.interval = Duration.ofSeconds(interval);
+        this.start = toEpochSecond(start);
+        this.end = toEpochSecond(end);
+        this.interval = interval;
         this.active = false;
         this.repeated = true;
     }
 
+    /**
+     * The method that creates a task from epoch seconds, which is used when the task is read from a file.
+     * A task with zero <code>interval</code> is non-repeating and is executed at <code>start</code>.
+     *
+     * @param title the task name
+     * @param start the notification start time in epoch seconds
+     * @param end the notification end time in epoch seconds
+     * @param interval the repeat interval, zero for a non-repeating task
+     * @param active the task status
+     *
+     * @return the inactive or active task
+     *
+     * @throws IllegalArgumentException if...
+     * <ul>
+     * <li><code>start</code> is greater than <code>end</code>;</li>
+     * <li><code>interval</code> is negative;</li>
+     * <li>a non-repeating task has different <code>start</code> and <code>end</code>.</li>
+     * </ul>
+     */
+    static Task ofEpochSeconds(String title, long start, long end, int interval, boolean active)
+            throws IllegalArgumentException {
+        if (start > end) {
+            throw new IllegalArgumentException("The end of task must be greater than the start of task.");
+        }
+        if (interval < 0 || (interval == 0 && start != end)) {
+            throw new IllegalArgumentException("Interval must be greater than zero.");
+        }
+        Task task = new Task();
+        task.title = title;
+        task.start = start;
+        task.end = end;
+        task.interval = interval;
+        task.active = active;
+        task.repeated = interval != 0;
+        return task;
+    }
+
+    /**
+     * Getter for the task identifier.
+     *
+     * @return the task identifier
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Setter for the task identifier, which is used when the task is read from a file.
+     * The identifiers of new tasks are always greater than the identifiers that were set.
+     *
+     * @param id the task identifier
+     */
+    void setId(long id) {
+        this.id = id;
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+    }
+
     /**
      * Getter for the task title.
      *
@@ -116,7 +201,7 @@ public class Task implements Cloneable, Externalizable {
      * @return <code>time</code> if a task is non-repeating and <code>start</code> if is repeating
      */
     public LocalDateTime getTime() {
-        return (isRepeated() ? start : time);
+        return ofEpochSecond(start);
     }
 
     /**
@@ -131,13 +216,11 @@ public class Task implements Cloneable, Externalizable {
         if (time == null) {
             throw new IllegalArgumentException("Time must not be null.");
         }
-        if (isRepeated()) {
-            this.repeated = false;
-            this.start = null;
-            this.end = null;
-            this.interval = null;
-        }
-        this.time = time;
+        this.repeated = false;
+        this.start = toEpochSecond(time);
+        this.end = this.start;
+        this.interval = 0;
+        scheduleChanged();
     }
 
     /**
@@ -146,7 +229,16 @@ public class Task implements Cloneable, Externalizable {
      * @return <code>time</code> if a task is non-repeating and <code>start</code> if is repeating
      */
     public LocalDateTime getStartTime() {
-        return (isRepeated() ? start : time);
+        return ofEpochSecond(start);
+    }
+
+    /**
+     * Getter for the start time in epoch seconds.
+     *
+     * @return <code>time</code> if a task is non-repeating and <code>start</code> if is repeating
+     */
+    public long getStartEpochSecond() {
+        return start;
     }
 
     /**
@@ -155,7 +247,16 @@ public class Task implements Cloneable, Externalizable {
      * @return <code>time</code> if a task is non-repeating and <code>end</code> if is repeating
      */
     public LocalDateTime getEndTime() {
-        return (isRepeated() ? end : time);
+        return ofEpochSecond(end);
+    }
+
+    /**
+     * Getter for the end time in epoch seconds.
+     *
+     * @return <code>time</code> if a task is non-repeating and <code>end</code> if is repeating
+     */
+    public long getEndEpochSecond() {
+        return end;
     }
 
     /**
@@ -164,7 +265,7 @@ public class Task implements Cloneable, Externalizable {
      * @return zero if a task is non-repeating and <code>interval</code> if is repeating
      */
     public int getRepeatInterval() {
-        return (isRepeated() ? (int) interval.getSeconds() : 0);
+        return interval;
     }
 
     /**
@@ -192,13 +293,81 @@ public class Task implements Cloneable, Externalizable {
         if (interval <= 0) {
             throw new IllegalArgumentException("Interval must be greater than zero.");
         }
-        if (!isRepeated()) {
-            this.repeated = true;
-            this.time = null;
+        this.repeated = true;
+        this.start = toEpochSecond(start);
+        this.end = toEpochSecond(end);
+        this.interval = interval;
+        scheduleChanged();
+    }
+
+    /**
+     * The listener of the changes of the task schedule, through which an indexed list
+     * learns which of its tasks have an outdated position in the index.
+     */
+    interface ScheduleListener {
+        void scheduleChanged(Task task);
+    }
+
+    /**
+     * The method that adds the listener of the changes of the task schedule.
+     * The listener is referenced weakly, so it does not keep a dropped list alive.
+     * A task can be added to lists by several threads, for example to the results of searches,
+     * so the listeners are changed under the lock of the task and read without it.
+     *
+     * @param listener the listener
+     */
+    synchronized void addScheduleListener(ScheduleListener listener) {
+        List<WeakReference<ScheduleListener>> listeners = scheduleListeners;
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+        } else {
+            listeners.removeIf(reference -> reference.get() == null);
+        }
+        listeners.add(new WeakReference<>(listener));
+        scheduleListeners = listeners;
+    }
+
+    /**
+     * The method that removes the listener of the changes of the task schedule.
+     *
+     * @param listener the listener
+     */
+    synchronized void removeScheduleListener(ScheduleListener listener) {
+        List<WeakReference<ScheduleListener>> listeners = scheduleListeners;
+        if (listeners == null) {
+            return;
+        }
+        listeners.removeIf(reference -> reference.get() == null || reference.get() == listener);
+        if (listeners.isEmpty()) {
+            scheduleListeners = null;
+        }
+    }
+
+    /**
+     * The method that marks the change of <code>start</code> or <code>end</code> of the task
+     * and reports it to the listeners, so indexed lists can find the tasks whose position in the index is outdated.
+     */
+    private void scheduleChanged() {
+        scheduleVersion++;
+        List<WeakReference<ScheduleListener>> listeners = scheduleListeners;
+        if (listeners == null) {
+            return;
+        }
+        for (WeakReference<ScheduleListener> reference : listeners) {
+            ScheduleListener listener = reference.get();
+            if (listener != null) {
+                listener.scheduleChanged(this);
+            }
         }
-        this.start = start;
-        this.end = end;
-        this.interval = Duration.ofSeconds(interval);
+    }
+
+    /**
+     * Getter for the number of changes of the task schedule.
+     *
+     * @return the version of the task schedule
+     */
+    int getScheduleVersion() {
+        return scheduleVersion;
     }
 
     /**
@@ -212,6 +381,8 @@ public class Task implements Cloneable, Externalizable {
 
     /**
      * The method which returns the time of the next task execution.
+     * For a repeating task the index of the next repetition is computed
+     * from epoch seconds with one division instead of walking the whole timeline.
      *
      * @param current the specified time
      *
@@ -224,20 +395,172 @@ public class Task implements Cloneable, Externalizable {
         if (current == null) {
             throw new IllegalArgumentException("Specified time must not be null.");
         }
-        if (isActive()) {
-            if (!isRepeated()) {
-                return (current.isAfter(time) || current.isEqual(time) ? null : time);
+        long next = nextTimeAfter(toEpochSecond(current));
+        return (next == NO_TIME ? null : ofEpochSecond(next));
+    }
+
+    /**
+     * The method which returns the time of the next task execution in epoch seconds.
+     *
+     * @param current the specified time in epoch seconds
+     *
+     * @return the time of the next task execution after the specified time,
+     * if after the specified time a task wasn't executed, then the method returns {@link #NO_TIME}.
+     */
+    public long nextTimeAfter(long current) {
+        if (!isActive() || current >= end) {
+            return NO_TIME;
+        }
+        if (current < start) {
+            return start;
+        }
+        long next = start + ((current - start) / interval + 1) * interval;
+        return (next <= end ? next : NO_TIME);
+    }
+
+    /**
+     * The method that returns the lazy stream of task executions
+     * at or after time <code>from</code> and no later than <code>to</code>.
+     * The stream starts straight from the first execution in the period
+     * and can be split by time for parallel processing.
+     * An inactive task has no executions.
+     *
+     * @param from the start time of the period
+     * @param to the end time of the period
+     *
+     * @return the ordered stream of execution times
+     *
+     * @throws IllegalArgumentException if timestamps are <code>null</code>
+     */
+    public Stream<LocalDateTime> occurrences(LocalDateTime from, LocalDateTime to) throws IllegalArgumentException {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Timestamps must not be null.");
+        }
+        long fromSecond = toEpochSecond(from);
+        if (from.getNano() != 0) {
+            fromSecond++;
+        }
+        return occurrences(fromSecond, toEpochSecond(to)).mapToObj(Task::ofEpochSecond);
+    }
+
+    /**
+     * The method that returns the lazy stream of task executions in epoch seconds
+     * at or after time <code>from</code> and no later than <code>to</code>.
+     * The stream does not allocate objects per execution.
+     *
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     *
+     * @return the ordered stream of execution times in epoch seconds
+     */
+    public LongStream occurrences(long from, long to) {
+        return StreamSupport.longStream(occurrenceSpliterator(from, to), false);
+    }
+
+    /**
+     * The method that returns the spliterator over task executions in epoch seconds
+     * at or after time <code>from</code> and no later than <code>to</code>.
+     *
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     *
+     * @return the sorted, sized spliterator of execution times which splits the period in halves
+     */
+    public Spliterator.OfLong occurrenceSpliterator(long from, long to) {
+        return new OccurrenceSpliterator(this, from, to);
+    }
+
+    /**
+     * The spliterator over task executions. The execution with index <code>i</code>
+     * is at <code>start + i * interval</code>, so the spliterator keeps only the range of indexes.
+     */
+    static class OccurrenceSpliterator implements Spliterator.OfLong {
+        private final long start;
+        private final long interval;
+        private long index;
+        private final long fence;
+
+        /**
+         * Constructor that creates the spliterator over executions of the task in the period.
+         *
+         * @param task the task
+         * @param from the start time of the period in epoch seconds (inclusive)
+         * @param to the end time of the period in epoch seconds (inclusive)
+         */
+        OccurrenceSpliterator(Task task, long from, long to) {
+            this.start = task.start;
+            this.interval = task.interval;
+            long last = Math.min(to, task.end);
+            if (!task.isActive() || from > last) {
+                this.index = 0;
+                this.fence = 0;
+            } else if (interval == 0) {
+                this.index = 0;
+                this.fence = (from <= start && start <= last) ? 1 : 0;
             } else {
-                if (current.isBefore(end)) {
-                    for (LocalDateTime i = start; i.isBefore(end) || i.isEqual(end); i = i.plus(interval)) {
-                        if (current.isBefore(i)) {
-                            return i;
-                        }
-                    }
-                }
+                this.index = from <= start ? 0 : Math.floorDiv(from - start - 1, interval) + 1;
+                this.fence = last < start ? 0 : (last - start) / interval + 1;
+            }
+        }
+
+        private OccurrenceSpliterator(long start, long interval, long index, long fence) {
+            this.start = start;
+            this.interval = interval;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        /**
+         * The method that returns the next execution and moves the spliterator after it.
+         *
+         * @return the next execution in epoch seconds or {@link #NO_TIME} if there are no more executions
+         */
+        long nextTime() {
+            if (index >= fence) {
+                return NO_TIME;
+            }
+            return start + index++ * interval;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(start + index++ * interval);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            for (; index < fence; ++index) {
+                action.accept(start + index * interval);
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long middle = (index + fence) >>> 1;
+            if (middle <= index) {
                 return null;
             }
-        } else {
+            OccurrenceSpliterator prefix = new OccurrenceSpliterator(start, interval, index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(fence - index, 0);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
             return null;
         }
     }
@@ -245,15 +568,23 @@ public class Task implements Cloneable, Externalizable {
     @Override
     public String toString() {
         if (isRepeated()) {
-            return "Task \"" + title + "\": {start = " + start
-                    + "; end = " + end + "; interval = " + interval.getSeconds()
+            return "Task \"" + title + "\": {start = " + getStartTime()
+                    + "; end = " + getEndTime() + "; interval = " + interval
                     + "; active -> " + active + "; repeated -> " + repeated + "}";
         } else {
-            return "Task \"" + title + "\": {time = " + time
+            return "Task \"" + title + "\": {time = " + getTime()
                     + "; active -> " + active + "; repeated -> " + repeated + "}";
         }
     }
 
+    /**
+     * Tasks are equal if they have the same identifier, so a task stays equal to itself after editing
+     * and to its copies.
+     *
+     * @param o the other object
+     *
+     * @return <code>true</code> if the object is a task with the same identifier
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -262,52 +593,29 @@ public class Task implements Cloneable, Externalizable {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        Task task = (Task) o;
-        return Objects.equals(time, task.time) && Objects.equals(start, task.start) && Objects.equals(end, task.end)
-                && Objects.equals(interval, task.interval) && active == task.active
-                && repeated == task.repeated && Objects.equals(title, task.title);
+        return id == ((Task) o).id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(title, time, start, end, interval, active, repeated);
+        return Long.hashCode(id);
     }
 
     @Override
     public Task clone() throws CloneNotSupportedException {
-        return (Task) super.clone();
+        Task clone = (Task) super.clone();
+        clone.scheduleListeners = null;
+        return clone;
     }
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeUTF(title);
         out.writeBoolean(active);
-        if (interval == null) {
-            out.writeLong(0L);
-        } else {
-            out.writeLong(interval.getSeconds());
-        }
+        out.writeLong(interval);
+        writeExternalTime(out, start);
         if (this.isRepeated()) {
-            out.writeByte(start.getSecond());
-            out.writeByte(start.getMinute());
-            out.writeByte(start.getHour());
-            out.writeByte(start.getDayOfMonth());
-            out.writeByte(start.getMonthValue());
-            out.writeInt(start.getYear());
-
-            out.writeByte(end.getSecond());
-            out.writeByte(end.getMinute());
-            out.writeByte(end.getHour());
-            out.writeByte(end.getDayOfMonth());
-            out.writeByte(end.getMonthValue());
-            out.writeInt(end.getYear());
-        } else {
-            out.writeByte(time.getSecond());
-            out.writeByte(time.getMinute());
-            out.writeByte(time.getHour());
-            out.writeByte(time.getDayOfMonth());
-            out.writeByte(time.getMonthValue());
-            out.writeInt(time.getYear());
+            writeExternalTime(out, end);
         }
     }
 
@@ -317,20 +625,49 @@ public class Task implements Cloneable, Externalizable {
         active = in.readBoolean();
         long interval = in.readLong();
         if (interval != 0L) {
-            byte[] startTimes = readExternalTimeOfBytes(in);
-            int startYear = in.readInt();
-            byte[] endTimes = readExternalTimeOfBytes(in);
-            int endYear = in.readInt();
-            start = LocalDateTime.of(startYear, startTimes[4], startTimes[3], startTimes[2], startTimes[1], startTimes[0]);
-            end = LocalDateTime.of(endYear, endTimes[4], endTimes[3], endTimes[2], endTimes[1], endTimes[0]);
-            this.interval = Duration.ofSeconds(interval);
+            start = readExternalTime(in);
+            end = readExternalTime(in);
+            this.interval = (int) interval;
             repeated = true;
         } else {
-            byte[] times = readExternalTimeOfBytes(in);
-            int timeYear = in.readInt();
-            time = LocalDateTime.of(timeYear, times[4], times[3], times[2], times[1], times[0]);
+            start = readExternalTime(in);
+            end = start;
+            this.interval = 0;
             repeated = false;
         }
+        scheduleChanged();
+    }
+
+    /**
+     * Method that writes the time as bytes of second, minute, hour, day, month and <code>int</code> year.
+     *
+     * @param out the output stream
+     * @param epochSecond the time in epoch seconds
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    private void writeExternalTime(ObjectOutput out, long epochSecond) throws IOException {
+        int secondOfDay = (int) Math.floorMod(epochSecond, (long) SECONDS_PER_DAY);
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+        out.writeByte(secondOfDay % 60);
+        out.writeByte(secondOfDay / 60 % 60);
+        out.writeByte(secondOfDay / 3600);
+        out.writeByte(date.getDayOfMonth());
+        out.writeByte(date.getMonthValue());
+        out.writeInt(date.getYear());
+    }
+
+    /**
+     * Method that reads the time written by {@link #writeExternalTime(ObjectOutput, long)}.
+     *
+     * @param in the input stream
+     * @return the time in epoch seconds
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    private long readExternalTime(ObjectInput in) throws IOException {
+        byte[] times = readExternalTimeOfBytes(in);
+        int year = in.readInt();
+        return LocalDate.of(year, times[4], times[3]).toEpochDay() * SECONDS_PER_DAY
+                + LocalTime.of(times[2], times[1], times[0]).toSecondOfDay();
     }
 
     /**
@@ -347,4 +684,24 @@ public class Task implements Cloneable, Externalizable {
         }
         return times;
     }
+
+    /**
+     * The method that converts the date-time to epoch seconds.
+     *
+     * @param time the date-time
+     * @return the date-time in epoch seconds
+     */
+    static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * The method that converts epoch seconds to the date-time.
+     *
+     * @param epochSecond the time in epoch seconds
+     * @return the date-time
+     */
+    static LocalDateTime ofEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
 }
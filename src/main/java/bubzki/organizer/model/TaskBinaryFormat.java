@@ -0,0 +1,339 @@
+package bubzki.organizer.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The compact binary format of task lists.
+ * A file starts with the magic number and the version of the format and consists of blocks of tasks.
+ * Every block has the number of tasks, the length of its data, the data and the CRC32 of the data;
+ * a block without tasks ends the file.
+ * Numbers are written as variable-length quantities: the start of a task as the difference
+ * from the start of the previous task of the block, the end as the difference from the start.
+ * Every title is written once, the next tasks with the same title refer to it by its number.
+ */
+class TaskBinaryFormat {
+    /**
+     * The first bytes of a file in this format, "TKLS".
+     */
+    static final int MAGIC = 0x544B4C53;
+    static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 4096;
+    private static final int MAX_BLOCK_LENGTH = 1 << 28;
+    private static final int ACTIVE = 1;
+    private static final int REPEATED = 2;
+    private static final int NEW_TITLE = 4;
+    private static final int NULL_TITLE = 8;
+
+    private TaskBinaryFormat() {
+    }
+
+    /**
+     * The method that checks whether the stream starts with the magic number of this format.
+     * The stream is reset to the same position.
+     *
+     * @param in the input stream that supports marks
+     *
+     * @return <code>true</code> if the stream is in this format
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    static boolean matches(InputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        int magic = 0;
+        for (int i = 0; i < Integer.BYTES; ++i) {
+            int b = in.read();
+            if (b == -1) {
+                in.reset();
+                return false;
+            }
+            magic = (magic << 8) | b;
+        }
+        in.reset();
+        return magic == MAGIC;
+    }
+
+    /**
+     * The method that writes the tasks to the stream. The stream is buffered, flushed and not closed.
+     *
+     * @param tasks the tasks
+     * @param out the output stream
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    static void write(Iterable<Task> tasks, OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+        dos.writeInt(MAGIC);
+        dos.writeByte(VERSION);
+        Map<String, Integer> titles = new HashMap<>();
+        Buffer block = new Buffer();
+        int count = 0;
+        long previous = 0;
+        for (Task task : tasks) {
+            int flags = (task.isActive() ? ACTIVE : 0) | (task.isRepeated() ? REPEATED : 0);
+            Integer title = null;
+            if (task.getTitle() == null) {
+                flags |= NULL_TITLE;
+            } else {
+                title = titles.get(task.getTitle());
+                if (title == null) {
+                    titles.put(task.getTitle(), titles.size());
+                    flags |= NEW_TITLE;
+                }
+            }
+            block.writeVarLong(task.getId());
+            block.writeByte(flags);
+            if ((flags & NEW_TITLE) != 0) {
+                byte[] bytes = task.getTitle().getBytes(StandardCharsets.UTF_8);
+                block.writeVarLong(bytes.length);
+                block.write(bytes, 0, bytes.length);
+            } else if (title != null) {
+                block.writeVarLong(title);
+            }
+            block.writeVarLong(zigZag(task.getStartEpochSecond() - previous));
+            previous = task.getStartEpochSecond();
+            if (task.isRepeated()) {
+                block.writeVarLong(task.getEndEpochSecond() - task.getStartEpochSecond());
+                block.writeVarLong(task.getRepeatInterval());
+            }
+            if (++count == BLOCK_SIZE) {
+                writeBlock(dos, block, count);
+                count = 0;
+                previous = 0;
+            }
+        }
+        if (count != 0) {
+            writeBlock(dos, block, count);
+        }
+        writeVarLong(dos, 0);
+        dos.flush();
+    }
+
+    /**
+     * The method that writes the block of tasks with its header and checksum and empties the buffer.
+     *
+     * @param out the output stream
+     * @param block the data of the block
+     * @param count the number of tasks in the block
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    private static void writeBlock(DataOutputStream out, Buffer block, int count) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(block.bytes, 0, block.length);
+        writeVarLong(out, count);
+        writeVarLong(out, block.length);
+        out.write(block.bytes, 0, block.length);
+        out.writeInt((int) crc.getValue());
+        block.length = 0;
+    }
+
+    /**
+     * The method that reads the tasks from the stream in this format.
+     *
+     * @param in the input stream
+     *
+     * @return the read tasks in the order of the file
+     *
+     * @throws IOException if the stream is not in this format, has an unknown version or a corrupted block,
+     * or was failed or interrupted I/O operations.
+     */
+    static List<Task> read(InputStream in) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        read(in, tasks::addAll);
+        return tasks;
+    }
+
+    /**
+     * The method that reads the tasks from the stream in this format block by block,
+     * so the tasks can be used before the whole stream is read.
+     *
+     * @param in the input stream
+     * @param blocks the consumer that takes the tasks of every block in the order of the file
+     *
+     * @throws IOException if the stream is not in this format, has an unknown version or a corrupted block,
+     * or was failed or interrupted I/O operations; the blocks before the broken one are already taken.
+     */
+    static void read(InputStream in, Consumer<? super List<Task>> blocks) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+        if (dis.readInt() != MAGIC) {
+            throw new StreamCorruptedException("The stream is not a task list.");
+        }
+        int version = dis.readUnsignedByte();
+        if (version > VERSION) {
+            throw new InvalidObjectException("Unknown version of the task list format: " + version + ".");
+        }
+        List<String> titles = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        for (long count = readVarLong(dis); count != 0; count = readVarLong(dis)) {
+            long length = readVarLong(dis);
+            if (count < 0 || count > length || length > MAX_BLOCK_LENGTH) {
+                throw new StreamCorruptedException("Corrupted block header.");
+            }
+            byte[] bytes = new byte[(int) length];
+            dis.readFully(bytes);
+            crc.reset();
+            crc.update(bytes, 0, bytes.length);
+            if (dis.readInt() != (int) crc.getValue()) {
+                throw new StreamCorruptedException("Checksum of block does not match.");
+            }
+            List<Task> tasks = new ArrayList<>((int) count);
+            readBlock(new Buffer(bytes), count, titles, tasks);
+            blocks.accept(tasks);
+        }
+    }
+
+    /**
+     * The method that decodes the tasks of a block.
+     *
+     * @param block the data of the block
+     * @param count the number of tasks in the block
+     * @param titles the titles read before
+     * @param tasks the list that takes the tasks
+     *
+     * @throws IOException if the block is corrupted.
+     */
+    private static void readBlock(Buffer block, long count, List<String> titles, List<Task> tasks) throws IOException {
+        long previous = 0;
+        try {
+            for (long i = 0; i < count; ++i) {
+                long id = block.readVarLong();
+                int flags = block.readByte();
+                String title = null;
+                if ((flags & NEW_TITLE) != 0) {
+                    int length = (int) block.readVarLong();
+                    title = new String(block.bytes, block.take(length), length, StandardCharsets.UTF_8);
+                    titles.add(title);
+                } else if ((flags & NULL_TITLE) == 0) {
+                    title = titles.get((int) block.readVarLong());
+                }
+                long start = previous + unZigZag(block.readVarLong());
+                previous = start;
+                long end = start;
+                int interval = 0;
+                if ((flags & REPEATED) != 0) {
+                    end = start + block.readVarLong();
+                    interval = (int) block.readVarLong();
+                    if (interval <= 0) {
+                        throw new IllegalArgumentException("Interval must be greater than zero.");
+                    }
+                }
+                Task task = Task.ofEpochSeconds(title, start, end, interval, (flags & ACTIVE) != 0);
+                task.setId(id);
+                tasks.add(task);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new StreamCorruptedException("Corrupted block: " + e.getMessage());
+        }
+        if (block.position != block.length) {
+            throw new StreamCorruptedException("Corrupted block: unexpected data after tasks.");
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable-length number.");
+    }
+
+    /**
+     * The class of growable byte arrays for encoding and decoding blocks.
+     */
+    private static class Buffer {
+        byte[] bytes;
+        int length;
+        int position;
+
+        Buffer() {
+            bytes = new byte[8192];
+        }
+
+        Buffer(byte[] bytes) {
+            this.bytes = bytes;
+            this.length = bytes.length;
+        }
+
+        void writeByte(int value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void write(byte[] source, int offset, int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        int readByte() {
+            if (position >= length) {
+                throw new IndexOutOfBoundsException("The block is too short.");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        /**
+         * The method that skips the specified number of bytes.
+         *
+         * @param count the number of bytes
+         *
+         * @return the position of the first skipped byte
+         */
+        int take(int count) {
+            if (count < 0 || count > length - position) {
+                throw new IndexOutOfBoundsException("The block is too short.");
+            }
+            int start = position;
+            position += count;
+            return start;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IndexOutOfBoundsException("Malformed variable-length number.");
+        }
+    }
+}
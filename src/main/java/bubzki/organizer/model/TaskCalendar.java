@@ -0,0 +1,716 @@
+package bubzki.organizer.model;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * The read-only calendar of tasks - a sorted table where each date constitutes a set of tasks
+ * to be performed at this time.
+ * The dates are kept as an array of epoch seconds and the tasks of all dates as one array
+ * split into groups, so the calendar does not create map entries or sets until they are requested.
+ */
+public class TaskCalendar extends AbstractMap<LocalDateTime, Set<Task>> implements SortedMap<LocalDateTime, Set<Task>> {
+    /**
+     * The number of executions from which the calendar is built in parallel.
+     */
+    static final long PARALLEL_THRESHOLD = 100000;
+    private static final int SLICES_PER_THREAD = 4;
+    private final long[] times;
+    private final int[] groupStarts;
+    private final Task[] tasks;
+    private final int first;
+    private final int last;
+    private final LocalDateTime lowKey;
+    private final LocalDateTime highKey;
+
+    /**
+     * Constructor that creates a view of the calendar from <code>first</code> (inclusive)
+     * to <code>last</code> (exclusive) date.
+     *
+     * @param times the dates in epoch seconds in ascending order
+     * @param groupStarts the indexes in <code>tasks</code> where the group of every date starts,
+     *                    with one more element that ends the last group
+     * @param tasks the tasks of all dates
+     * @param first the index of the first date of the view
+     * @param last the index after the last date of the view
+     * @param lowKey the lowest key of the view (inclusive), <code>null</code> if the view has no low bound
+     * @param highKey the highest key of the view (exclusive), <code>null</code> if the view has no high bound
+     */
+    private TaskCalendar(long[] times, int[] groupStarts, Task[] tasks, int first, int last,
+                         LocalDateTime lowKey, LocalDateTime highKey) {
+        this.times = times;
+        this.groupStarts = groupStarts;
+        this.tasks = tasks;
+        this.first = first;
+        this.last = last;
+        this.lowKey = lowKey;
+        this.highKey = highKey;
+    }
+
+    /**
+     * The method that builds a calendar of the tasks for the period <code>(from, to]</code>.
+     * Every task gets a cursor of its next execution, and the cursors are merged through
+     * a priority queue, so the calendar costs O(M log N) for M executions of N tasks.
+     * If there are {@link #PARALLEL_THRESHOLD} executions or more and the common fork-join pool
+     * has several threads, the period is split into slices that are built in parallel.
+     *
+     * @param tasks the tasks that are scheduled in the period
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     *
+     * @return the calendar of the tasks
+     */
+    static TaskCalendar build(Iterable<Task> tasks, long from, long to) {
+        List<Task> list = new ArrayList<>();
+        for (Task task : tasks) {
+            list.add(task);
+        }
+        Task[] array = list.toArray(new Task[0]);
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (parallelism > 1 && hasExecutions(array, from, to, PARALLEL_THRESHOLD)) {
+            return build(array, from, to, parallelism * SLICES_PER_THREAD);
+        }
+        return merge(array, from, to).build();
+    }
+
+    /**
+     * The method that builds a calendar of the tasks for the period <code>(from, to]</code>
+     * split into slices of equal length. Every slice is merged separately by the common fork-join pool,
+     * and the slices are joined in the order of time, so the result is the same as of one merge.
+     *
+     * @param tasks the tasks that are scheduled in the period
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     * @param slices the number of slices
+     *
+     * @return the calendar of the tasks
+     */
+    static TaskCalendar build(Task[] tasks, long from, long to, int slices) {
+        int count = (int) Math.max(1, Math.min(slices, to - from));
+        long step = (to - from) / count;
+        Builder[] parts = IntStream.range(0, count).parallel()
+                .mapToObj(i -> merge(tasks, from + step * i, (i == count - 1 ? to : from + step * (i + 1))))
+                .toArray(Builder[]::new);
+        Builder builder = parts[0];
+        for (int i = 1; i < count; ++i) {
+            builder.append(parts[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The method that merges the executions of the tasks for the period <code>(from, to]</code>.
+     *
+     * @param tasks the tasks
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     *
+     * @return the builder with the dates and tasks of the period
+     */
+    private static Builder merge(Task[] tasks, long from, long to) {
+        Merger merger = new Merger(tasks, from, to);
+        Builder builder = new Builder();
+        while (merger.hasNext()) {
+            long time = merger.peekTime();
+            merger.next(task -> builder.add(time, task));
+        }
+        return builder;
+    }
+
+    /**
+     * The class that merges the executions of the tasks for the period <code>(from, to]</code>
+     * and gives them date by date in ascending order. It keeps only a cursor of every task,
+     * so the memory does not depend on the length of the period or the number of executions.
+     */
+    static class Merger {
+        private final PriorityQueue<Cursor> queue = new PriorityQueue<>();
+
+        /**
+         * Constructor that creates the cursors of the tasks at their first execution in the period.
+         *
+         * @param tasks the tasks
+         * @param from the start time of the period in epoch seconds
+         * @param to the end time of the period in epoch seconds
+         */
+        Merger(Task[] tasks, long from, long to) {
+            for (int order = 0; order < tasks.length; ++order) {
+                Task task = tasks[order];
+                Cursor cursor = new Cursor(task, new Task.OccurrenceSpliterator(task, from + 1, to), order);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        /**
+         * The method that checks whether there are more dates.
+         *
+         * @return <code>true</code> if there are more executions in the period
+         */
+        boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        /**
+         * The method that returns the next date without moving to the following one.
+         *
+         * @return the next date in epoch seconds
+         *
+         * @throws NoSuchElementException if there are no more dates.
+         */
+        long peekTime() throws NoSuchElementException {
+            if (queue.isEmpty()) {
+                throw new NoSuchElementException("There are no more dates.");
+            }
+            return queue.peek().next;
+        }
+
+        /**
+         * The method that gives the tasks of the next date to the action in the order of the tasks
+         * and moves to the following date.
+         *
+         * @param action the action that takes the tasks of the date
+         *
+         * @return the number of the tasks of the date
+         *
+         * @throws NoSuchElementException if there are no more dates.
+         */
+        int next(Consumer<? super Task> action) throws NoSuchElementException {
+            long time = peekTime();
+            int count = 0;
+            while (!queue.isEmpty() && queue.peek().next == time) {
+                Cursor cursor = queue.poll();
+                action.accept(cursor.task);
+                count++;
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * The method that checks whether the tasks have at least <code>limit</code> executions
+     * in the period <code>(from, to]</code>, without visiting the executions.
+     *
+     * @param tasks the tasks
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     * @param limit the number of executions
+     *
+     * @return <code>true</code> if there are at least <code>limit</code> executions
+     */
+    private static boolean hasExecutions(Task[] tasks, long from, long to, long limit) {
+        return countExecutions(tasks, from, to, limit) >= limit;
+    }
+
+    /**
+     * The method that counts the executions of the tasks in the period <code>(from, to]</code>
+     * up to <code>limit</code>, without visiting the executions.
+     *
+     * @param tasks the tasks
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     * @param limit the number of executions at which the counting stops
+     *
+     * @return the number of executions or <code>limit</code> if there are more of them
+     */
+    static long countExecutions(Task[] tasks, long from, long to, long limit) {
+        long count = 0;
+        for (Task task : tasks) {
+            count += new Task.OccurrenceSpliterator(task, from + 1, to).estimateSize();
+            if (count >= limit) {
+                return limit;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The class of cursors over the executions of a task.
+     * Cursors are ordered by the next execution and then by the order of the tasks.
+     */
+    private static class Cursor implements Comparable<Cursor> {
+        final Task task;
+        final Task.OccurrenceSpliterator occurrences;
+        final int order;
+        long next;
+
+        Cursor(Task task, Task.OccurrenceSpliterator occurrences, int order) {
+            this.task = task;
+            this.occurrences = occurrences;
+            this.order = order;
+        }
+
+        /**
+         * The method that moves the cursor to the next execution.
+         *
+         * @return <code>true</code> if there is the next execution in the period
+         */
+        boolean advance() {
+            next = occurrences.nextTime();
+            return next != Task.NO_TIME;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int result = Long.compare(next, other.next);
+            return result != 0 ? result : Integer.compare(order, other.order);
+        }
+    }
+
+    /**
+     * The class that collects dates in ascending order with their tasks into the arrays of the calendar.
+     */
+    static class Builder {
+        private static final int DEFAULT_CAPACITY = 16;
+        private static final int LINEAR_SEARCH_LIMIT = 8;
+        private long[] times = new long[DEFAULT_CAPACITY];
+        private int[] groupStarts = new int[DEFAULT_CAPACITY + 1];
+        private Task[] tasks = new Task[DEFAULT_CAPACITY];
+        private int timeCount;
+        private int taskCount;
+        private Set<Task> groupSet;
+
+        /**
+         * The method that adds the task to the date. Dates must be added in ascending order.
+         * The same task is added to a date only once.
+         *
+         * @param time the date in epoch seconds
+         * @param task the task
+         */
+        void add(long time, Task task) {
+            if (timeCount == 0 || times[timeCount - 1] != time) {
+                if (timeCount == times.length) {
+                    times = Arrays.copyOf(times, timeCount * 2);
+                    groupStarts = Arrays.copyOf(groupStarts, timeCount * 2 + 1);
+                }
+                times[timeCount] = time;
+                groupStarts[timeCount] = taskCount;
+                timeCount++;
+                groupSet = null;
+            } else if (containsInGroup(task)) {
+                return;
+            }
+            if (taskCount == tasks.length) {
+                tasks = Arrays.copyOf(tasks, taskCount * 2);
+            }
+            tasks[taskCount++] = task;
+            if (groupSet != null) {
+                groupSet.add(task);
+            }
+        }
+
+        /**
+         * The method that appends the dates and tasks of another builder,
+         * whose dates are all after the dates of this builder.
+         *
+         * @param other the other builder
+         */
+        void append(Builder other) {
+            if (timeCount + other.timeCount >= times.length) {
+                int capacity = Math.max(timeCount + other.timeCount, times.length * 2);
+                times = Arrays.copyOf(times, capacity);
+                groupStarts = Arrays.copyOf(groupStarts, capacity + 1);
+            }
+            if (taskCount + other.taskCount > tasks.length) {
+                tasks = Arrays.copyOf(tasks, Math.max(taskCount + other.taskCount, tasks.length * 2));
+            }
+            System.arraycopy(other.times, 0, times, timeCount, other.timeCount);
+            for (int i = 0; i < other.timeCount; ++i) {
+                groupStarts[timeCount + i] = other.groupStarts[i] + taskCount;
+            }
+            System.arraycopy(other.tasks, 0, tasks, taskCount, other.taskCount);
+            timeCount += other.timeCount;
+            taskCount += other.taskCount;
+            groupSet = null;
+        }
+
+        /**
+         * The method that adds the date with the tasks of a group, which are all different.
+         * The date must be after the dates of this builder.
+         *
+         * @param time the date in epoch seconds
+         * @param source the array with the tasks of the group
+         * @param from the index of the first task of the group in <code>source</code>
+         * @param to the index after the last task of the group in <code>source</code>
+         */
+        void addGroup(long time, Task[] source, int from, int to) {
+            if (timeCount == times.length) {
+                times = Arrays.copyOf(times, timeCount * 2);
+                groupStarts = Arrays.copyOf(groupStarts, timeCount * 2 + 1);
+            }
+            if (taskCount + to - from > tasks.length) {
+                tasks = Arrays.copyOf(tasks, Math.max(taskCount + to - from, tasks.length * 2));
+            }
+            times[timeCount] = time;
+            groupStarts[timeCount] = taskCount;
+            timeCount++;
+            System.arraycopy(source, from, tasks, taskCount, to - from);
+            taskCount += to - from;
+            groupSet = null;
+        }
+
+        /**
+         * The method that checks whether the group of the last date contains the task.
+         *
+         * @param task the task
+         *
+         * @return <code>true</code> if the group contains the task
+         */
+        private boolean containsInGroup(Task task) {
+            int groupStart = groupStarts[timeCount - 1];
+            if (groupSet == null) {
+                if (taskCount - groupStart < LINEAR_SEARCH_LIMIT) {
+                    for (int i = groupStart; i < taskCount; ++i) {
+                        if (task.equals(tasks[i])) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                groupSet = new HashSet<>(Arrays.asList(tasks).subList(groupStart, taskCount));
+            }
+            return groupSet.contains(task);
+        }
+
+        /**
+         * The method that creates the calendar from the collected dates.
+         *
+         * @return the calendar
+         */
+        TaskCalendar build() {
+            groupStarts[timeCount] = taskCount;
+            return new TaskCalendar(Arrays.copyOf(times, timeCount), Arrays.copyOf(groupStarts, timeCount + 1),
+                    Arrays.copyOf(tasks, taskCount), 0, timeCount, null, null);
+        }
+    }
+
+    /**
+     * The method that copies the dates of this calendar in the period <code>(from, to]</code>
+     * with their tasks to a new builder, so the calendar of an overlapping period can reuse them.
+     *
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     *
+     * @return the builder with the dates and tasks of the period
+     */
+    Builder slice(long from, long to) {
+        Builder builder = new Builder();
+        for (int i = upperBound(from), end = upperBound(to); i < end; ++i) {
+            builder.addGroup(times[i], tasks, groupStarts[i], groupStarts[i + 1]);
+        }
+        return builder;
+    }
+
+    /**
+     * The method that creates the calendar of the period <code>(from, to]</code> of this calendar
+     * without the removed tasks and with the executions of the added tasks,
+     * merging this calendar with the calendar of the added tasks instead of building it again.
+     * The tasks of every date are kept in the order of the list, as if the calendar was built again,
+     * so the added tasks of a date are merged with the other tasks of the date by their positions in the list.
+     *
+     * @param removed the tasks that need to remove
+     * @param added the tasks that are scheduled in the period and need to add, in any order
+     * @param from the start time of the period in epoch seconds
+     * @param to the end time of the period in epoch seconds
+     * @param order the function that gives the position of a task in the list,
+     *              which is called only for the tasks of the dates that get added tasks
+     *
+     * @return the changed calendar
+     */
+    TaskCalendar update(Set<Task> removed, Task[] added, long from, long to, ToIntFunction<? super Task> order) {
+        Task[] sorted = added.clone();
+        if (sorted.length > 1) {
+            Arrays.sort(sorted, Comparator.comparingInt(order));
+        }
+        TaskCalendar addedCalendar = merge(sorted, from, to).build();
+        Builder builder = new Builder();
+        int i = first;
+        int j = addedCalendar.first;
+        while (i < last || j < addedCalendar.last) {
+            long time = (j == addedCalendar.last || (i < last && times[i] <= addedCalendar.times[j])
+                    ? times[i] : addedCalendar.times[j]);
+            int k = 0;
+            int end = 0;
+            if (j < addedCalendar.last && addedCalendar.times[j] == time) {
+                k = addedCalendar.groupStarts[j];
+                end = addedCalendar.groupStarts[j + 1];
+                j++;
+            }
+            if (i < last && times[i] == time) {
+                for (int n = groupStarts[i]; n < groupStarts[i + 1]; ++n) {
+                    if (removed.contains(tasks[n])) {
+                        continue;
+                    }
+                    if (k < end) {
+                        int position = order.applyAsInt(tasks[n]);
+                        while (k < end && order.applyAsInt(addedCalendar.tasks[k]) < position) {
+                            builder.add(time, addedCalendar.tasks[k++]);
+                        }
+                    }
+                    builder.add(time, tasks[n]);
+                }
+                i++;
+            }
+            while (k < end) {
+                builder.add(time, addedCalendar.tasks[k++]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The method that checks whether any of the tasks is in this calendar.
+     *
+     * @param tasks the tasks
+     *
+     * @return <code>true</code> if the calendar has any of the tasks
+     */
+    boolean containsAny(Set<Task> tasks) {
+        for (int k = groupStarts[first]; k < groupStarts[last]; ++k) {
+            if (tasks.contains(this.tasks[k])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The method that returns the number of dates and task references kept by this calendar,
+     * which is used to bound the memory of cached calendars.
+     *
+     * @return the number of dates and task references
+     */
+    long weight() {
+        return (long) (last - first) + groupStarts[last] - groupStarts[first];
+    }
+
+    /**
+     * The method that finds the position of the first date that is after the time.
+     *
+     * @param second the time in epoch seconds
+     *
+     * @return the position of the date in the arrays, between <code>first</code> and <code>last</code>
+     */
+    private int upperBound(long second) {
+        int low = first;
+        int high = last;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= second) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The method that returns the date with the specified index in epoch seconds.
+     *
+     * @param index the index of the date in the calendar
+     *
+     * @return the date in epoch seconds
+     *
+     * @throws IndexOutOfBoundsException if index is out of the calendar range.
+     */
+    public long getEpochSecond(int index) throws IndexOutOfBoundsException {
+        return times[checkIndex(index)];
+    }
+
+    /**
+     * The method that returns the tasks of the date with the specified index.
+     *
+     * @param index the index of the date in the calendar
+     *
+     * @return the read-only set of tasks
+     *
+     * @throws IndexOutOfBoundsException if index is out of the calendar range.
+     */
+    public Set<Task> getTasks(int index) throws IndexOutOfBoundsException {
+        return group(checkIndex(index));
+    }
+
+    private int checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= last - first) {
+            throw new IndexOutOfBoundsException("The index is out of range.");
+        }
+        return first + index;
+    }
+
+    private Set<Task> group(int position) {
+        return new TaskGroup(tasks, groupStarts[position], groupStarts[position + 1]);
+    }
+
+    /**
+     * The method that finds the position of the first date that is not before the key.
+     *
+     * @param key the date
+     *
+     * @return the position of the date in the arrays, between <code>first</code> and <code>last</code>
+     */
+    private int lowerBound(LocalDateTime key) {
+        long second = Task.toEpochSecond(key);
+        if (key.getNano() != 0) {
+            second++;
+        }
+        int low = first;
+        int high = last;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < second) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int position(Object key) {
+        if (!(key instanceof LocalDateTime) || ((LocalDateTime) key).getNano() != 0) {
+            return -1;
+        }
+        int position = lowerBound((LocalDateTime) key);
+        return position < last && times[position] == Task.toEpochSecond((LocalDateTime) key) ? position : -1;
+    }
+
+    @Override
+    public int size() {
+        return last - first;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return position(key) != -1;
+    }
+
+    @Override
+    public Set<Task> get(Object key) {
+        int position = position(key);
+        return position == -1 ? null : group(position);
+    }
+
+    @Override
+    public Comparator<? super LocalDateTime> comparator() {
+        return null;
+    }
+
+    /**
+     * The method that checks that the key is in the range of this view, as {@link TreeMap} does for its views.
+     * The low key of the view is in the range, and the high key is in it only as a high bound of a new view.
+     *
+     * @param key the key
+     * @param highBound <code>true</code> if the key is the high bound (exclusive) of a new view
+     *
+     * @throws IllegalArgumentException if the key is out of the range
+     */
+    private void checkRange(LocalDateTime key, boolean highBound) throws IllegalArgumentException {
+        if ((lowKey != null && key.isBefore(lowKey))
+                || (highKey != null && (highBound ? key.isAfter(highKey) : !key.isBefore(highKey)))) {
+            throw new IllegalArgumentException("The key is out of range.");
+        }
+    }
+
+    @Override
+    public TaskCalendar subMap(LocalDateTime fromKey, LocalDateTime toKey) throws IllegalArgumentException {
+        if (fromKey.isAfter(toKey)) {
+            throw new IllegalArgumentException("Key \"fromKey\" must not be greater than \"toKey\".");
+        }
+        checkRange(fromKey, false);
+        checkRange(toKey, true);
+        return new TaskCalendar(times, groupStarts, tasks, lowerBound(fromKey), lowerBound(toKey), fromKey, toKey);
+    }
+
+    @Override
+    public TaskCalendar headMap(LocalDateTime toKey) throws IllegalArgumentException {
+        checkRange(toKey, true);
+        return new TaskCalendar(times, groupStarts, tasks, first, lowerBound(toKey), lowKey, toKey);
+    }
+
+    @Override
+    public TaskCalendar tailMap(LocalDateTime fromKey) throws IllegalArgumentException {
+        checkRange(fromKey, false);
+        return new TaskCalendar(times, groupStarts, tasks, lowerBound(fromKey), last, fromKey, highKey);
+    }
+
+    @Override
+    public LocalDateTime firstKey() {
+        if (first == last) {
+            throw new NoSuchElementException("The calendar is empty.");
+        }
+        return Task.ofEpochSecond(times[first]);
+    }
+
+    @Override
+    public LocalDateTime lastKey() {
+        if (first == last) {
+            throw new NoSuchElementException("The calendar is empty.");
+        }
+        return Task.ofEpochSecond(times[last - 1]);
+    }
+
+    @Override
+    public Set<Entry<LocalDateTime, Set<Task>>> entrySet() {
+        return new AbstractSet<Entry<LocalDateTime, Set<Task>>>() {
+            @Override
+            public Iterator<Entry<LocalDateTime, Set<Task>>> iterator() {
+                return new Iterator<Entry<LocalDateTime, Set<Task>>>() {
+                    private int position = first;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < last;
+                    }
+
+                    @Override
+                    public Entry<LocalDateTime, Set<Task>> next() throws NoSuchElementException {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException("Iteration has no more elements.");
+                        }
+                        Entry<LocalDateTime, Set<Task>> entry = new SimpleImmutableEntry<>(Task.ofEpochSecond(times[position]), group(position));
+                        position++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return last - first;
+            }
+        };
+    }
+
+    /**
+     * The class of read-only sets of tasks of one date, backed by a range of the calendar array.
+     */
+    private static class TaskGroup extends AbstractSet<Task> {
+        private final Task[] tasks;
+        private final int from;
+        private final int to;
+
+        TaskGroup(Task[] tasks, int from, int to) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return Collections.unmodifiableList(Arrays.asList(tasks).subList(from, to)).iterator();
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
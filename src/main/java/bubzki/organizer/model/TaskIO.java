@@ -1,24 +1,55 @@
 package bubzki.organizer.model;
 
-import com.google.gson.*;
+import com.google.gson.JsonParseException;
 
 import java.io.*;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 
 public class TaskIO {
+    /**
+     * The serial versions of the task lists in the files of the previous versions, which did not declare them,
+     * so the versions were computed by the compiler. The declared versions are the ones of the builds for Java 11
+     * and later, and the builds for Java 9 wrote these ones.
+     */
+    private final static Map<String, Long> LEGACY_SERIAL_VERSIONS = Map.of(
+            ArrayTaskList.class.getName(), 6838500463702266573L,
+            LinkedTaskList.class.getName(), 628979232936963863L);
 
     /**
-     * Method that writes tasks from the list in stream in binary format.
+     * The stream of Java serialization that reads the task lists of all previous versions.
+     * The descriptor of a list with a legacy serial version is replaced by the descriptor of the list,
+     * which is safe because the lists are {@link Externalizable} and read their data themselves.
+     */
+    private static class LegacyObjectInputStream extends ObjectInputStream {
+        LegacyObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass descriptor = super.readClassDescriptor();
+            Long legacy = LEGACY_SERIAL_VERSIONS.get(descriptor.getName());
+            if (legacy != null && legacy == descriptor.getSerialVersionUID()) {
+                return ObjectStreamClass.lookup(resolveClass(descriptor));
+            }
+            return descriptor;
+        }
+    }
+
+    /**
+     * Method that writes tasks from the list in stream in the compact binary format.
      *
      * @param taskList the task list that need to write to the <code>out</code> stream.
      * @param out the output binary stream
      */
     public static void write(AbstractTaskList taskList, OutputStream out) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
-            oos.writeObject(taskList);
-            //taskList.writeExternal(oos);
+        try (OutputStream os = out) {
+            TaskBinaryFormat.write(taskList, os);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -26,38 +57,104 @@ public class TaskIO {
 
     /**
      * Method that reads tasks from the stream in binary format to <code>taskList</code>.
+     * The format is detected by the first bytes: the compact format
+     * or the Java serialization written by the previous versions.
+     * If the stream is broken, no tasks are added.
      *
      * @param taskList the task list that takes data from the <code>in</code> stream
      * @param in the input binary stream
      */
     public static void read(AbstractTaskList taskList, InputStream in) {
-        try (ObjectInputStream ois = new ObjectInputStream(in)) {
-            AbstractTaskList tempTaskList = (AbstractTaskList) ois.readObject();
-            for (Task temp : tempTaskList) {
-                taskList.add(temp);
-            }
-            //taskList.readExternal(ois);
+        try {
+            readDetectingFormat(taskList, in);
         } catch (IOException | ClassNotFoundException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Method that reads tasks from the stream in the compact binary format or in Java serialization.
+     * An empty stream has no tasks.
+     *
+     * @param taskList the task list that takes data from the <code>in</code> stream
+     * @param in the input binary stream
+     *
+     * @return <code>true</code> if the stream was in Java serialization
+     *
+     * @throws IOException if was failed or interrupted I/O operations or the stream is broken.
+     * @throws ClassNotFoundException if the class of the serialized list cannot be found.
+     */
+    static boolean readDetectingFormat(AbstractTaskList taskList, InputStream in)
+            throws IOException, ClassNotFoundException {
+        try (BufferedInputStream bis = new BufferedInputStream(in)) {
+            if (TaskBinaryFormat.matches(bis)) {
+                taskList.addAll(TaskBinaryFormat.read(bis));
+                return false;
+            }
+            bis.mark(1);
+            if (bis.read() == -1) {
+                return false;
+            }
+            bis.reset();
+            ObjectInputStream ois = new LegacyObjectInputStream(bis);
+            taskList.addAll((AbstractTaskList) ois.readObject());
+            return true;
+        }
+    }
+
     /**
      * Method that writes the task list in binary format to the file.
+     * The file is replaced atomically, so it is never left half-written.
      *
      * @param taskList the task list that need to write to the <code>file</code>
      * @param file the file to write
      */
     public static void writeBinary(AbstractTaskList taskList, File file) {
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            write(taskList, fos);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        try {
+            writeAtomically(taskList, file);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Method that writes the tasks in the compact binary format to a temporary file, forces it to the disk
+     * and moves it over the file, so after a crash the file has either the old or the new tasks.
+     *
+     * @param tasks the tasks that need to write to the <code>file</code>
+     * @param file the file to replace
+     *
+     * @throws IOException if was failed or interrupted I/O operations, in which case the file is not changed.
+     */
+    static void writeAtomically(Iterable<Task> tasks, File file) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+                TaskBinaryFormat.write(tasks, fos);
+                fos.getFD().sync();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        syncDirectory(target.getParent());
+    }
+
+    /**
+     * Method that forces the entries of the directory to the disk, so the rename survives a crash.
+     * Some systems cannot open directories, then the rename is left to the file system.
+     *
+     * @param directory the directory
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
     /**
      * Method that reads the task list in binary format from the file to <code>taskList</code>.
      *
@@ -65,31 +162,60 @@ public class TaskIO {
      * @param file the file to read
      */
     public static void readBinary(AbstractTaskList taskList, File file) {
+        ArrayTaskList tempTaskList = new ArrayTaskList();
+        boolean serialized;
         try (FileInputStream fis = new FileInputStream(file)) {
-            read(taskList, fis);
+            serialized = readDetectingFormat(tempTaskList, fis);
         } catch (FileNotFoundException e) {
             e.printStackTrace();
+            return;
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return;
+        }
+        taskList.addAll(tempTaskList);
+        if (serialized) {
+            migrate(tempTaskList, file);
+        }
+    }
+
+    /**
+     * Method that rewrites the file of the previous versions in the compact binary format.
+     * The tasks are written to a temporary file which then replaces the file,
+     * so the file is never left half-written.
+     *
+     * @param taskList the tasks read from the <code>file</code>
+     * @param file the file to rewrite
+     */
+    private static void migrate(AbstractTaskList taskList, File file) {
+        try {
+            writeAtomically(taskList, file);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Method that writes the task list in JSON format to the stream.
+     * Method that writes the task list in JSON format to the stream with indentation.
      *
      * @param taskList the task list that need to write to the <code>out</code> stream
      * @param out the output character stream
      */
     public static void write(AbstractTaskList taskList, Writer out) {
+        write(taskList, out, true);
+    }
+
+    /**
+     * Method that writes the task list in JSON format to the stream.
+     * The tasks are written one by one, so the memory used does not depend on the size of the list.
+     *
+     * @param taskList the task list that need to write to the <code>out</code> stream
+     * @param out the output character stream
+     * @param pretty <code>true</code> to indent the output, <code>false</code> to write it compactly
+     */
+    public static void write(AbstractTaskList taskList, Writer out, boolean pretty) {
         try (BufferedWriter bufW = new BufferedWriter(out)) {
-            GsonBuilder gsonBuilder;
-            if (LinkedTaskList.class.equals(taskList.getClass())) {
-                gsonBuilder = gsonBuilderSerializerForLinkedTaskList();
-            } else {
-                gsonBuilder = gsonBuilderSerializerForArrayTaskList();
-            }
-            Gson gson = gsonBuilder.setPrettyPrinting().create();
-            bufW.write(gson.toJson(taskList, taskList.getClass()));
+            TaskJsonFormat.write(taskList, bufW, pretty);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -97,36 +223,39 @@ public class TaskIO {
 
     /**
      * Method that reads the task list in JSON format from the stream to <code>taskList</code>.
+     * The tasks are added only if the whole stream was read.
      *
      * @param taskList the task list that takes data from the <code>in</code> stream
      * @param in the input character stream
      */
     public static void read(AbstractTaskList taskList, Reader in) {
         try (BufferedReader bufR = new BufferedReader(in)) {
-            GsonBuilder gsonBuilder;
-            if (LinkedTaskList.class.equals(taskList.getClass())) {
-                gsonBuilder = gsonBuilderDeserializerForLinkedTaskList();
-            } else {
-                gsonBuilder = gsonBuilderDeserializerForArrayTaskList();
-            }
-            Gson gson = gsonBuilder.create();
-            for (Task temp : gson.fromJson(bufR, taskList.getClass())) {
-                taskList.add(temp);
-            }
-        } catch (IOException e) {
+            TaskJsonFormat.read(bufR, taskList);
+        } catch (IOException | JsonParseException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Method that writes the task list in JSON format to the file.
+     * Method that writes the task list in JSON format to the file with indentation.
      *
      * @param taskList the task list that need to write to the <code>file</code>
      * @param file the file to write
      */
     public static void writeText(AbstractTaskList taskList, File file) {
+        writeText(taskList, file, true);
+    }
+
+    /**
+     * Method that writes the task list in JSON format to the file.
+     *
+     * @param taskList the task list that need to write to the <code>file</code>
+     * @param file the file to write
+     * @param pretty <code>true</code> to indent the output, <code>false</code> to write it compactly
+     */
+    public static void writeText(AbstractTaskList taskList, File file, boolean pretty) {
         try (FileWriter fw = new FileWriter(file)) {
-            write(taskList, fw);
+            write(taskList, fw, pretty);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -147,101 +276,4 @@ public class TaskIO {
             e.printStackTrace();
         }
     }
-
-    /**
-     * Method that creates {@link GsonBuilder} with correct parameters for serialization {@link LinkedTaskList}.
-     *
-     * @return the {@link GsonBuilder} with correct parameters
-     */
-    private static GsonBuilder gsonBuilderSerializerForLinkedTaskList() {
-        GsonBuilder gsonBuilder = gsonBuilderSerializerForLocalDateTime();
-        gsonBuilder.registerTypeAdapter(LinkedTaskList.class, (JsonSerializer<LinkedTaskList>) (linkedTaskList, type, jsonSerializationContext) -> {
-            JsonObject jo = new JsonObject();
-            JsonArray tasks = new JsonArray();
-            for (Task temp : linkedTaskList) {
-                tasks.add(jsonSerializationContext.serialize(temp));
-            }
-            jo.addProperty("size", linkedTaskList.size());
-            jo.add("tasks", tasks);
-            return jo;
-        });
-        return gsonBuilder;
-    }
-
-    /**
-     * Method that creates {@link GsonBuilder} with correct parameters for deserialization {@link LinkedTaskList}.
-     *
-     * @return the {@link GsonBuilder} with correct parameters
-     */
-    private static GsonBuilder gsonBuilderDeserializerForLinkedTaskList() {
-        GsonBuilder gsonBuilder = gsonBuilderDeserializerForLocalDateTime();
-        gsonBuilder.registerTypeAdapter(LinkedTaskList.class, (JsonDeserializer<LinkedTaskList>) (json, type, jsonDeserializationContext) -> {
-            LinkedTaskList linkedTaskList = new LinkedTaskList();
-            int size = json.getAsJsonObject().get("size").getAsInt();
-            for (int i = 0; i < size; ++i) {
-                linkedTaskList.add(jsonDeserializationContext.deserialize(json.getAsJsonObject().get("tasks").getAsJsonArray().get(i).getAsJsonObject(), Task.class));
-            }
-            return linkedTaskList;
-        });
-        return gsonBuilder;
-    }
-
-    /**
-     * Method that creates {@link GsonBuilder} with correct parameters for serialization {@link ArrayTaskList}.
-     *
-     * @return the {@link GsonBuilder} with correct parameters
-     */
-    private static GsonBuilder gsonBuilderSerializerForArrayTaskList() {
-        GsonBuilder gsonBuilder = gsonBuilderSerializerForLocalDateTime();
-        gsonBuilder.registerTypeAdapter(Task[].class, (JsonSerializer<Task[]>) (tasks, type, jsonSerializationContext) -> {
-            JsonArray ja = new JsonArray();
-            for (Task temp : tasks) {
-                if (temp == null) {
-                    break;
-                }
-                ja.add(jsonSerializationContext.serialize(temp));
-            }
-            return ja;
-        });
-        return gsonBuilder;
-    }
-
-    /**
-     * Method that creates {@link GsonBuilder} with correct parameters for deserialization {@link ArrayTaskList}.
-     *
-     * @return the {@link GsonBuilder} with correct parameters
-     */
-    private static GsonBuilder gsonBuilderDeserializerForArrayTaskList() {
-        return gsonBuilderDeserializerForLocalDateTime();
-    }
-
-    /**
-     * Method that creates {@link GsonBuilder} with correct parameters for serialization {@link LocalDateTime}.
-     *
-     * @return the {@link GsonBuilder} with correct parameters
-     */
-    private static GsonBuilder gsonBuilderSerializerForLocalDateTime() {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>) (ldt, type, jsonSerializationContext) ->
-                //new JsonPrimitive(ldt.toEpochSecond(ZoneOffset.UTC)));
-                new JsonPrimitive(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss").format(ldt)));
-        gsonBuilder.registerTypeAdapter(Duration.class, (JsonSerializer<Duration>) (duration, type, jsonSerializationContext) ->
-                new JsonPrimitive(duration.getSeconds()));
-        return gsonBuilder;
-    }
-
-    /**
-     * Method that creates {@link GsonBuilder} with correct parameters for deserialization {@link LocalDateTime}.
-     *
-     * @return the {@link GsonBuilder} with correct parameters
-     */
-    private static GsonBuilder gsonBuilderDeserializerForLocalDateTime() {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(LocalDateTime.class, (JsonDeserializer<LocalDateTime>) (json, type, jsonDeserializationContext) ->
-                //LocalDateTime.ofEpochSecond(json.getAsLong(), 0, ZoneOffset.UTC));
-                LocalDateTime.parse(json.getAsString(), DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")));
-        gsonBuilder.registerTypeAdapter(Duration.class, (JsonDeserializer<Duration>) (json, type, jsonDeserializationContext) ->
-                Duration.ofSeconds(json.getAsLong()));
-        return gsonBuilder;
-    }
 }
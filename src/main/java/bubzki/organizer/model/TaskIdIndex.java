@@ -0,0 +1,139 @@
+package bubzki.organizer.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * The index of task identifiers for lists that keep tasks by positions.
+ * It keeps for every identifier the number of its tasks and a position which is not before
+ * the first of them. Removing a task moves the tasks after it back by one, so instead of
+ * updating their positions the index counts the removals since it was built: the first task
+ * with the identifier is not further back than this number, and the lookup checks only these positions.
+ * The index is rebuilt when the number of removals grows to about the square root of the size,
+ * so one removal costs O(sqrt n) of the index on average instead of rebuilding the tail.
+ * The index is built at the first lookup, and after the changes that move many tasks at once.
+ */
+final class TaskIdIndex {
+    private final static int MIN_REBUILD_DISTANCE = 64;
+    private final IntFunction<Task> tasks;
+    private final Map<Long, Slot> slots = new HashMap<>();
+    private int removals;
+    private boolean built;
+
+    /**
+     * The class of the entries of the index.
+     */
+    private static class Slot {
+        int position;
+        int count;
+
+        Slot(int position) {
+            this.position = position;
+            this.count = 1;
+        }
+    }
+
+    /**
+     * Constructor that creates an index which is built at the first lookup.
+     *
+     * @param tasks the function that returns the task of the list at the specified position
+     */
+    TaskIdIndex(IntFunction<Task> tasks) {
+        this.tasks = tasks;
+    }
+
+    /**
+     * The method that returns the position of the first task with the specified identifier.
+     *
+     * @param id the task identifier
+     * @param size the size of the list
+     *
+     * @return the position of the task or -1 if there is no such task in the list
+     */
+    int indexOf(long id, int size) {
+        if (!built || removals > Math.max(MIN_REBUILD_DISTANCE, (int) Math.sqrt(size))) {
+            build(size);
+        }
+        Slot slot = slots.get(id);
+        if (slot == null) {
+            return -1;
+        }
+        int end = Math.min(slot.position, size - 1);
+        for (int i = Math.max(0, slot.position - removals); i <= end; ++i) {
+            if (tasks.apply(i).getId() == id) {
+                return i;
+            }
+        }
+        build(size);
+        return indexOf(id, size);
+    }
+
+    /**
+     * The method that adds the task at the end of the list to the index.
+     *
+     * @param task the added task
+     * @param position the position of the task, which is the size of the list before adding
+     */
+    void added(Task task, int position) {
+        if (!built) {
+            return;
+        }
+        Slot slot = slots.get(task.getId());
+        if (slot == null) {
+            slots.put(task.getId(), new Slot(position));
+        } else {
+            slot.count++;
+        }
+    }
+
+    /**
+     * The method that removes the task at the specified position from the index.
+     * It must be called before the task is removed from the list.
+     *
+     * @param position the position of the removed task
+     * @param size the size of the list before removing
+     */
+    void removed(int position, int size) {
+        if (!built) {
+            return;
+        }
+        long id = tasks.apply(position).getId();
+        Slot slot = slots.get(id);
+        if (slot.count > 1 && indexOf(id, size) == position) {
+            slot = slots.get(id);
+            int next = position + 1;
+            while (tasks.apply(next).getId() != id) {
+                next++;
+            }
+            slot.position = next - 1;
+        }
+        if (--slot.count == 0) {
+            slots.remove(id);
+        }
+        removals++;
+    }
+
+    /**
+     * The method that drops the index after the changes that move many tasks at once,
+     * so it is rebuilt at the next lookup.
+     */
+    void invalidate() {
+        built = false;
+        slots.clear();
+    }
+
+    /**
+     * The method that builds the index from the tasks of the list.
+     *
+     * @param size the size of the list
+     */
+    private void build(int size) {
+        slots.clear();
+        removals = 0;
+        built = true;
+        for (int i = 0; i < size; ++i) {
+            added(tasks.apply(i), i);
+        }
+    }
+}
@@ -0,0 +1,762 @@
+package bubzki.organizer.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The append-only journal of changes of the task list, which is kept next to the snapshot of the list.
+ * Every added, edited or removed task is appended as a record with its length and CRC32,
+ * so a record torn by a crash is detected and dropped at the next start.
+ * The records are written by a background thread: all records appended while the previous batch
+ * was written are written together and forced to the disk once (group commit).
+ * <p>
+ * When the journal grows past the threshold or on a timer, if there are new records, the list is checkpointed:
+ * the journal is renamed to the old journal, a new journal is started, the tasks are copied,
+ * the snapshot is written from the copies to a temporary file, forced to the disk and moved over the old snapshot,
+ * and the old journal is deleted. The tasks are copied by the background thread through the list,
+ * so the list must allow it while the list is changed and copy every task in a consistent state,
+ * as {@link ConcurrentTaskList} does under its lock. A record only describes the full state of a task,
+ * so the replay is idempotent and a crash at any step loses nothing: at the start the snapshot,
+ * the old journal and the journal are applied in this order.
+ * <p>
+ * The tasks of a legacy snapshot, written before identifiers, get new identifiers every time it is read,
+ * so the records of such a list are held until {@link #loadCompleted()} writes the snapshot again
+ * in the current format, and the journal never refers to identifiers which are not saved.
+ */
+public class TaskJournal implements Closeable {
+    /**
+     * The first bytes of a journal, "TKLJ".
+     */
+    static final int MAGIC = 0x544B4C4A;
+    static final int VERSION = 1;
+    private final static long DEFAULT_COMPACT_THRESHOLD = 1 << 20;
+    private final static int HEADER_SIZE = Integer.BYTES + 1;
+    private final static int MAX_RECORD_LENGTH = 1 << 24;
+    private final static int LEGACY_BATCH_SIZE = 4096;
+    private final static byte ADD = 1;
+    private final static byte EDIT = 2;
+    private final static byte REMOVE = 3;
+    private final Path snapshot;
+    private final Path journal;
+    private final Path oldJournal;
+    private final long compactThreshold;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> newThread(runnable, "Journal"));
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> newThread(runnable, "Journal compaction"));
+    private final Object lock = new Object();
+    private List<Record> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private final AtomicLong dirtyRecords = new AtomicLong();
+    private CompletableFuture<Duration> compaction;
+    private volatile boolean loaded;
+    private boolean legacy;
+    private volatile BiConsumer<Duration, Throwable> listener;
+    private boolean closed;
+    private AbstractTaskList taskList;
+    private FileChannel channel;
+
+    /**
+     * The class of encoded records, which are waiting to be written.
+     */
+    private static class Record {
+        final byte[] bytes;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        Record(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Constructor that creates the journal of the snapshot with the default threshold of compaction.
+     * The journal is kept in the same directory with the name of the snapshot and the suffix ".journal".
+     *
+     * @param snapshot the file of the snapshot in the format of {@link TaskIO#writeBinary(AbstractTaskList, File)}
+     */
+    public TaskJournal(File snapshot) {
+        this(snapshot, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Constructor that creates the journal of the snapshot.
+     *
+     * @param snapshot the file of the snapshot in the format of {@link TaskIO#writeBinary(AbstractTaskList, File)}
+     * @param compactThreshold the size of the journal in bytes after which it is compacted into the snapshot
+     *
+     * @throws IllegalArgumentException if <code>compactThreshold</code> is not positive
+     */
+    public TaskJournal(File snapshot, long compactThreshold) throws IllegalArgumentException {
+        if (compactThreshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be greater than zero.");
+        }
+        this.snapshot = snapshot.toPath();
+        this.journal = this.snapshot.resolveSibling(this.snapshot.getFileName() + ".journal");
+        this.oldJournal = this.snapshot.resolveSibling(this.snapshot.getFileName() + ".journal.old");
+        this.compactThreshold = compactThreshold;
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * The method that applies the records of the journals to the list read from the snapshot
+     * and opens the journal for appending. The torn tail of the journal is truncated.
+     * The list is compacted later into the snapshot, so it must stay the same object.
+     *
+     * @param taskList the task list read from the snapshot
+     *
+     * @return the number of applied records
+     *
+     * @throws IOException if a journal is not in this format or was failed or interrupted I/O operations.
+     * @throws IllegalStateException if the journal was already opened
+     */
+    public int replay(AbstractTaskList taskList) throws IOException, IllegalStateException {
+        start(taskList);
+        Map<Long, Task> changes = new LinkedHashMap<>();
+        int applied = readChanges(changes);
+        if (applied > 0) {
+            Set<Long> present = new HashSet<>();
+            taskList.removeIf(task -> changes.containsKey(task.getId()) && changes.get(task.getId()) == null);
+            taskList.replaceAll(task -> {
+                present.add(task.getId());
+                return changes.getOrDefault(task.getId(), task);
+            });
+            List<Task> added = new ArrayList<>();
+            for (Task task : changes.values()) {
+                if (task != null && !present.contains(task.getId())) {
+                    added.add(task);
+                }
+            }
+            taskList.addAll(added);
+        }
+        open(applied);
+        loadCompleted();
+        return applied;
+    }
+
+    /**
+     * The method that reads the snapshot and the journals and gives the tasks to the consumer in batches,
+     * which are added to the list by the consumer in the same order, then opens the journal for appending.
+     * The journals are read first, so every task of the snapshot is given in its latest state,
+     * and the snapshot is decoded block by block, so the first tasks can be shown before the last ones are read.
+     * The records appended while the list is loaded are written after the journal is opened.
+     * The journal is not compacted until {@link #loadCompleted()} tells that all batches are in the list.
+     *
+     * @param taskList the task list that takes the batches, it is compacted later into the snapshot
+     * @param batches the consumer of the batches of tasks
+     *
+     * @return the number of applied records
+     *
+     * @throws IOException if the snapshot or a journal is not in the format or was failed or interrupted I/O operations.
+     * @throws IllegalStateException if the journal was already opened
+     */
+    public int load(AbstractTaskList taskList, Consumer<? super List<Task>> batches)
+            throws IOException, IllegalStateException {
+        start(taskList);
+        Map<Long, Task> changes = new LinkedHashMap<>();
+        int applied = readChanges(changes);
+        Consumer<List<Task>> filter = block -> {
+            List<Task> batch = new ArrayList<>(block.size());
+            for (Task task : block) {
+                if (!changes.containsKey(task.getId())) {
+                    batch.add(task);
+                } else {
+                    Task changed = changes.remove(task.getId());
+                    if (changed != null) {
+                        batch.add(changed);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.accept(batch);
+            }
+        };
+        boolean legacy = false;
+        if (Files.exists(snapshot)) {
+            try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(snapshot))) {
+                if (TaskBinaryFormat.matches(in)) {
+                    TaskBinaryFormat.read(in, filter);
+                } else {
+                    ArrayTaskList tempTaskList = new ArrayTaskList();
+                    TaskIO.readDetectingFormat(tempTaskList, in);
+                    legacy = true;
+                    List<Task> block = new ArrayList<>(LEGACY_BATCH_SIZE);
+                    for (Task task : tempTaskList) {
+                        block.add(task);
+                        if (block.size() == LEGACY_BATCH_SIZE) {
+                            filter.accept(block);
+                            block.clear();
+                        }
+                    }
+                    filter.accept(block);
+                }
+            } catch (ClassNotFoundException e) {
+                throw new InvalidClassException("Unknown class of the serialized task list: " + e.getMessage());
+            }
+        }
+        List<Task> added = new ArrayList<>();
+        for (Task task : changes.values()) {
+            if (task != null) {
+                added.add(task);
+            }
+        }
+        if (!added.isEmpty()) {
+            batches.accept(added);
+        }
+        synchronized (lock) {
+            this.legacy = legacy;
+        }
+        open(applied);
+        return applied;
+    }
+
+    /**
+     * The method that tells the journal that all tasks given by {@link #load(AbstractTaskList, Consumer)}
+     * are in the list, so the list can be compacted into the snapshot.
+     * If the snapshot was legacy, it is written again from the copies of the tasks by the calling thread,
+     * the journals read with it are emptied, and then the records held since the load are written.
+     * If it fails, the records stay held and are dropped when the journal is closed.
+     * The journal is compacted at once, if it is past the threshold or the old journal is left.
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     * @throws IllegalStateException if the journal was not opened
+     */
+    public void loadCompleted() throws IOException, IllegalStateException {
+        List<Task> tasks = null;
+        synchronized (lock) {
+            if (channel == null) {
+                throw new IllegalStateException("The journal was not opened.");
+            }
+            if (legacy) {
+                tasks = taskList.copyTasks();
+            }
+        }
+        if (tasks != null) {
+            long started = System.nanoTime();
+            try {
+                TaskIO.writeAtomically(tasks, snapshot.toFile());
+            } catch (IOException | RuntimeException e) {
+                BiConsumer<Duration, Throwable> tempListener = listener;
+                if (tempListener != null) {
+                    tempListener.accept(null, e);
+                }
+                throw e;
+            }
+            BiConsumer<Duration, Throwable> tempListener = listener;
+            if (tempListener != null) {
+                tempListener.accept(Duration.ofNanos(System.nanoTime() - started), null);
+            }
+        }
+        synchronized (lock) {
+            if (legacy) {
+                channel.truncate(HEADER_SIZE);
+                channel.position(HEADER_SIZE);
+                channel.force(true);
+                Files.deleteIfExists(oldJournal);
+                dirtyRecords.set(0);
+                legacy = false;
+                if (!pending.isEmpty() && !flushScheduled && !closed) {
+                    flushScheduled = true;
+                    writer.execute(this::flush);
+                }
+            }
+            loaded = true;
+            if (Files.exists(oldJournal) || channel.size() > compactThreshold) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * The method that marks the journal as being opened for the list.
+     *
+     * @param taskList the task list of the journal
+     *
+     * @throws IllegalStateException if the journal was already opened
+     */
+    private void start(AbstractTaskList taskList) throws IllegalStateException {
+        synchronized (lock) {
+            if (this.taskList != null || closed) {
+                throw new IllegalStateException("The journal was already opened.");
+            }
+            this.taskList = taskList;
+        }
+    }
+
+    /**
+     * The method that reads the records of the old journal and the journal.
+     *
+     * @param changes the map that takes the latest state of every changed task by its identifier,
+     * <code>null</code> for removed tasks
+     *
+     * @return the number of read records
+     *
+     * @throws IOException if a journal is not in this format or was failed or interrupted I/O operations.
+     */
+    private int readChanges(Map<Long, Task> changes) throws IOException {
+        int applied = 0;
+        if (Files.exists(oldJournal)) {
+            applied += apply(oldJournal, changes, false);
+        }
+        if (Files.exists(journal)) {
+            applied += apply(journal, changes, true);
+        }
+        return applied;
+    }
+
+    /**
+     * The method that opens the journal for appending and writes the records appended before.
+     *
+     * @param dirty the number of records that are not in the snapshot yet
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    private void open(int dirty) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The journal was closed while it was opened.");
+            }
+            channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() < HEADER_SIZE) {
+                channel.truncate(0);
+                channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put((byte) VERSION).flip());
+                channel.force(true);
+            }
+            channel.position(channel.size());
+            dirtyRecords.set(dirty);
+            if (!pending.isEmpty() && !flushScheduled && !legacy) {
+                flushScheduled = true;
+                writer.execute(this::flush);
+            }
+        }
+    }
+
+    /**
+     * The method that applies the records of the journal to the tasks by their identifiers.
+     *
+     * @param file the journal
+     * @param tasks the latest state of the tasks by their identifiers, <code>null</code> for removed tasks
+     * @param truncate <code>true</code> to truncate the journal after the last valid record
+     *
+     * @return the number of applied records
+     *
+     * @throws IOException if the journal is not in this format or was failed or interrupted I/O operations.
+     */
+    private int apply(Path file, Map<Long, Task> tasks, boolean truncate) throws IOException {
+        long valid = 0;
+        int applied = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (Files.size(file) >= HEADER_SIZE) {
+                if (in.readInt() != MAGIC) {
+                    throw new StreamCorruptedException("The file is not a task journal.");
+                }
+                int version = in.readUnsignedByte();
+                if (version > VERSION) {
+                    throw new InvalidObjectException("Unknown version of the task journal: " + version + ".");
+                }
+                valid = HEADER_SIZE;
+                CRC32 crc = new CRC32();
+                while (true) {
+                    byte[] bytes;
+                    try {
+                        int length = in.readInt();
+                        if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                            break;
+                        }
+                        bytes = new byte[length];
+                        in.readFully(bytes);
+                        crc.reset();
+                        crc.update(bytes, 0, bytes.length);
+                        if (in.readInt() != (int) crc.getValue()) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    decode(bytes, tasks);
+                    valid += Integer.BYTES * 2 + bytes.length;
+                    applied++;
+                }
+            }
+        }
+        if (truncate && valid < Files.size(file)) {
+            try (FileChannel truncated = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncated.truncate(valid);
+                truncated.force(true);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * The method that applies a record to the tasks.
+     *
+     * @param bytes the record
+     * @param tasks the latest state of the tasks by their identifiers, <code>null</code> for removed tasks
+     *
+     * @throws IOException if the record is corrupted.
+     */
+    private static void decode(byte[] bytes, Map<Long, Task> tasks) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte type = in.readByte();
+        long id = in.readLong();
+        if (type == REMOVE) {
+            tasks.put(id, null);
+        } else if (type == ADD || type == EDIT) {
+            String title = null;
+            int length = in.readInt();
+            if (length >= 0) {
+                byte[] titleBytes = new byte[length];
+                in.readFully(titleBytes);
+                title = new String(titleBytes, StandardCharsets.UTF_8);
+            }
+            long start = in.readLong();
+            long end = in.readLong();
+            int interval = in.readInt();
+            boolean active = in.readBoolean();
+            Task task;
+            try {
+                task = Task.ofEpochSeconds(title, start, end, interval, active);
+            } catch (IllegalArgumentException e) {
+                throw new StreamCorruptedException("Corrupted record: " + e.getMessage());
+            }
+            task.setId(id);
+            tasks.put(id, task);
+        } else {
+            throw new StreamCorruptedException("Unknown type of record: " + type + ".");
+        }
+    }
+
+    /**
+     * The method that appends the record of the added task.
+     *
+     * @param task the added task
+     *
+     * @return the future that completes when the record is on the disk
+     */
+    public CompletableFuture<Void> added(Task task) {
+        return append(encode(ADD, task));
+    }
+
+    /**
+     * The method that appends the record of the edited task with its new state.
+     *
+     * @param task the edited task
+     *
+     * @return the future that completes when the record is on the disk
+     */
+    public CompletableFuture<Void> edited(Task task) {
+        return append(encode(EDIT, task));
+    }
+
+    /**
+     * The method that appends the record of the removed task.
+     *
+     * @param task the removed task
+     *
+     * @return the future that completes when the record is on the disk
+     */
+    public CompletableFuture<Void> removed(Task task) {
+        return append(encode(REMOVE, task));
+    }
+
+    /**
+     * The method that encodes the record with the length and checksum.
+     *
+     * @param type the type of the record
+     * @param task the task
+     *
+     * @return the bytes of the record
+     *
+     * @throws NullPointerException if task is null pointer
+     */
+    private static byte[] encode(byte type, Task task) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Task must not be null.");
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeByte(type);
+            out.writeLong(task.getId());
+            if (type != REMOVE) {
+                if (task.getTitle() == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] title = task.getTitle().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(title.length);
+                    out.write(title);
+                }
+                out.writeLong(task.getStartEpochSecond());
+                out.writeLong(task.getEndEpochSecond());
+                out.writeInt(task.getRepeatInterval());
+                out.writeBoolean(task.isActive());
+            }
+            out.writeInt(0);
+            byte[] record = bytes.toByteArray();
+            int length = record.length - Integer.BYTES * 2;
+            CRC32 crc = new CRC32();
+            crc.update(record, Integer.BYTES, length);
+            ByteBuffer.wrap(record).putInt(0, length).putInt(record.length - Integer.BYTES, (int) crc.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The method that queues the record and schedules writing, if it is not scheduled yet.
+     *
+     * @param bytes the record
+     *
+     * @return the future that completes when the record is on the disk
+     */
+    private CompletableFuture<Void> append(byte[] bytes) {
+        Record record = new Record(bytes);
+        synchronized (lock) {
+            if (taskList == null || closed) {
+                record.written.completeExceptionally(new IllegalStateException("The journal is not open."));
+                return record.written;
+            }
+            pending.add(record);
+            if (channel != null && !flushScheduled && !legacy) {
+                flushScheduled = true;
+                writer.execute(this::flush);
+            }
+        }
+        return record.written;
+    }
+
+    /**
+     * The method that writes all queued records at once, forces them to the disk
+     * and starts compaction, if the journal is too large and the list is loaded.
+     * The records held for a legacy snapshot are written only after it is written again,
+     * so they are kept until then and dropped if the journal is closed before.
+     */
+    private void flush() {
+        List<Record> batch;
+        boolean held;
+        synchronized (lock) {
+            held = legacy;
+            if (held && !closed) {
+                flushScheduled = false;
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (channel == null || held) {
+            for (Record record : batch) {
+                record.written.completeExceptionally(new IllegalStateException(held
+                        ? "The legacy snapshot was not written again." : "The journal was not opened."));
+            }
+            return;
+        }
+        int length = 0;
+        for (Record record : batch) {
+            length += record.bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (Record record : batch) {
+            buffer.put(record.bytes);
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            dirtyRecords.addAndGet(batch.size());
+            for (Record record : batch) {
+                record.written.complete(null);
+            }
+            if (loaded && channel.size() > compactThreshold) {
+                compact();
+            }
+        } catch (IOException e) {
+            for (Record record : batch) {
+                record.written.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * The method that checkpoints the list: compacts the journal into the snapshot in the background.
+     * The records appended until the call are written to the snapshot, the next ones are kept in the journal.
+     * The snapshot is written from the copies of the tasks, which are taken after the journal is renamed.
+     * If the checkpoint is already running, its future is returned.
+     * The list is not compacted until it is loaded, because the snapshot would lose the tasks which are not in it yet.
+     *
+     * @return the future that completes with the duration of the checkpoint when the snapshot is written,
+     * or fails with {@link IllegalStateException} if the journal is not open or the list is not loaded
+     */
+    public CompletableFuture<Duration> compact() {
+        synchronized (lock) {
+            if (channel == null || closed || !loaded) {
+                CompletableFuture<Duration> result = new CompletableFuture<>();
+                result.completeExceptionally(new IllegalStateException(
+                        channel == null || closed ? "The journal is not open." : "The list is not loaded."));
+                return result;
+            }
+            if (compaction != null) {
+                return compaction;
+            }
+            CompletableFuture<Duration> result = new CompletableFuture<>();
+            compaction = result;
+            long started = System.nanoTime();
+            writer.execute(() -> {
+                long records = 0;
+                try {
+                    flush();
+                    records = dirtyRecords.getAndSet(0);
+                    rotate();
+                    List<Task> tasks = taskList.copyTasks();
+                    long rotated = records;
+                    compactor.execute(() -> {
+                        try {
+                            TaskIO.writeAtomically(tasks, snapshot.toFile());
+                            Files.deleteIfExists(oldJournal);
+                            finishCompaction(result, Duration.ofNanos(System.nanoTime() - started), null);
+                        } catch (IOException | RuntimeException e) {
+                            dirtyRecords.addAndGet(rotated);
+                            finishCompaction(result, null, e);
+                        }
+                    });
+                } catch (IOException | RuntimeException e) {
+                    dirtyRecords.addAndGet(records);
+                    finishCompaction(result, null, e);
+                }
+            });
+            return result;
+        }
+    }
+
+    /**
+     * The method that completes the checkpoint and reports it to the listener.
+     *
+     * @param result the future of the checkpoint
+     * @param duration the duration of the checkpoint or <code>null</code> if it failed
+     * @param failure the exception of the failed checkpoint or <code>null</code>
+     */
+    private void finishCompaction(CompletableFuture<Duration> result, Duration duration, Throwable failure) {
+        synchronized (lock) {
+            compaction = null;
+        }
+        BiConsumer<Duration, Throwable> tempListener = listener;
+        if (tempListener != null) {
+            tempListener.accept(duration, failure);
+        }
+        if (failure == null) {
+            result.complete(duration);
+        } else {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * The method that checkpoints the list periodically, if there are records since the last checkpoint.
+     * The checkpoints are also made when the journal grows past the threshold.
+     *
+     * @param period the period between the checks
+     * @param unit the unit of the period
+     *
+     * @throws IllegalArgumentException if <code>period</code> is not positive
+     */
+    public void checkpointEvery(long period, TimeUnit unit) throws IllegalArgumentException {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be greater than zero.");
+        }
+        compactor.scheduleWithFixedDelay(() -> {
+            if (loaded && isDirty()) {
+                compact();
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * The method that sets the listener that is called after every checkpoint on the background thread
+     * with its duration, or with the exception if it failed.
+     *
+     * @param listener the listener or <code>null</code>
+     */
+    public void setCheckpointListener(BiConsumer<Duration, Throwable> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * The method that checks whether there are records written since the last checkpoint.
+     *
+     * @return <code>true</code> if the snapshot is behind the journal
+     */
+    public boolean isDirty() {
+        return dirtyRecords.get() > 0;
+    }
+
+    /**
+     * The method that renames the journal to the old journal and starts a new journal.
+     * If the old journal is left by the failed compaction, the journal is kept,
+     * and both of them are deleted by the next compactions.
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    private void rotate() throws IOException {
+        if (Files.exists(oldJournal)) {
+            return;
+        }
+        channel.close();
+        Files.move(journal, oldJournal, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put((byte) VERSION).flip());
+        channel.force(true);
+    }
+
+    /**
+     * The method that writes the queued records, waits for the compaction and closes the journal.
+     * The next records are not accepted.
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writer.execute(this::flush);
+            writer.shutdown();
+        }
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            compactor.shutdown();
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Closing the journal was interrupted.");
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
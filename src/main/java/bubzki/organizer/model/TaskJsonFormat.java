@@ -0,0 +1,196 @@
+package bubzki.organizer.model;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JSON format of task lists: an object with the size of the list and the array of its tasks.
+ * The tasks are written and read one by one with {@link JsonWriter} and {@link JsonReader},
+ * so no JSON tree or string of the whole list is built.
+ */
+class TaskJsonFormat {
+    static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+    /**
+     * The adapter of tasks, it keeps no state and is shared by all calls.
+     */
+    static final TypeAdapter<Task> TASK_ADAPTER = new TaskAdapter();
+    private static final String INDENT = "  ";
+
+    private TaskJsonFormat() {
+    }
+
+    /**
+     * The method that writes the tasks to the stream. The stream is flushed and not closed.
+     *
+     * @param taskList the task list
+     * @param out the output character stream
+     * @param pretty <code>true</code> to write every value on its own indented line
+     *
+     * @throws IOException if was failed or interrupted I/O operations.
+     */
+    static void write(AbstractTaskList taskList, Writer out, boolean pretty) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setHtmlSafe(true);
+        if (pretty) {
+            writer.setIndent(INDENT);
+        }
+        writer.beginObject();
+        writer.name("size").value(taskList.size());
+        writer.name("tasks").beginArray();
+        for (Task task : taskList) {
+            TASK_ADAPTER.write(writer, task);
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * The method that reads the tasks from the stream in this format and adds them to the end of the list.
+     * The tasks are added only if the whole stream was read, by one bulk change which presizes the list
+     * for the tasks that were read, so the size written in the stream is not trusted
+     * and the list does not keep the capacity as if it was requested by {@link AbstractTaskList#ensureCapacity(int)}.
+     * Unknown properties are skipped.
+     *
+     * @param in the input character stream
+     * @param taskList the task list that takes the read tasks
+     *
+     * @throws IOException if the stream is not valid JSON or was failed or interrupted I/O operations.
+     * @throws JsonParseException if the JSON does not describe a task list.
+     */
+    static void read(Reader in, AbstractTaskList taskList) throws IOException, JsonParseException {
+        JsonReader reader = new JsonReader(in);
+        List<Task> tasks = new ArrayList<>();
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "size":
+                        reader.nextInt();
+                        break;
+                    case "tasks":
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            tasks.add(TASK_ADAPTER.read(reader));
+                        }
+                        reader.endArray();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+        taskList.addAll(tasks);
+    }
+
+    /**
+     * The class that writes and reads a task without reflection and without a JSON tree.
+     */
+    private static class TaskAdapter extends TypeAdapter<Task> {
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            out.beginObject();
+            out.name("id").value(task.getId());
+            if (task.getTitle() != null) {
+                out.name("title").value(task.getTitle());
+            }
+            if (task.isRepeated()) {
+                out.name("start").value(DATE_TIME_FORMATTER.format(task.getStartTime()));
+                out.name("end").value(DATE_TIME_FORMATTER.format(task.getEndTime()));
+                out.name("interval").value(task.getRepeatInterval());
+            } else {
+                out.name("time").value(DATE_TIME_FORMATTER.format(task.getTime()));
+            }
+            out.name("active").value(task.isActive());
+            out.name("repeated").value(task.isRepeated());
+            out.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException, JsonParseException {
+            Long id = null;
+            String title = null;
+            String time = null;
+            String start = null;
+            String end = null;
+            int interval = 0;
+            boolean active = false;
+            boolean repeated = false;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        id = in.nextLong();
+                        break;
+                    case "title":
+                        title = in.nextString();
+                        break;
+                    case "time":
+                        time = in.nextString();
+                        break;
+                    case "start":
+                        start = in.nextString();
+                        break;
+                    case "end":
+                        end = in.nextString();
+                        break;
+                    case "interval":
+                        interval = in.nextInt();
+                        break;
+                    case "active":
+                        active = in.nextBoolean();
+                        break;
+                    case "repeated":
+                        repeated = in.nextBoolean();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            Task task;
+            try {
+                if (repeated) {
+                    if (start == null || end == null) {
+                        throw new JsonParseException("The repeated task has no start or end.");
+                    }
+                    task = new Task(title, LocalDateTime.parse(start, DATE_TIME_FORMATTER),
+                            LocalDateTime.parse(end, DATE_TIME_FORMATTER), interval);
+                } else {
+                    if (time == null) {
+                        throw new JsonParseException("The task has no time.");
+                    }
+                    task = new Task(title, LocalDateTime.parse(time, DATE_TIME_FORMATTER));
+                }
+            } catch (DateTimeException | IllegalArgumentException e) {
+                throw new JsonParseException("Invalid task: " + e.getMessage(), e);
+            }
+            task.setActive(active);
+            if (id != null) {
+                task.setId(id);
+            }
+            return task;
+        }
+    }
+}
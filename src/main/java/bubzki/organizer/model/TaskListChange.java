@@ -0,0 +1,141 @@
+package bubzki.organizer.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The change of a task list, which is given to the listeners of the list after every change.
+ * A change has the tasks that were added, removed and modified, in the order of the changes,
+ * and the version of the list after the change.
+ * The changes made by a bulk operation, such as {@link AbstractTaskList#addAll(Iterable)}
+ * or {@link AbstractTaskList#removeIf(java.util.function.Predicate)}, are given as one change.
+ * A task which was replaced by another task in one change is in the removed and the added tasks,
+ * so the removed tasks are applied before the added ones.
+ *
+ * @see AbstractTaskList#addListener(java.util.function.Consumer)
+ */
+public class TaskListChange {
+    private final AbstractTaskList list;
+    private final List<Task> added = new ArrayList<>();
+    private final List<Task> removed = new ArrayList<>();
+    private final List<Modification> modified = new ArrayList<>();
+    private long version;
+
+    /**
+     * The class of the modification of a task: the copy of the task before the modification and the task itself.
+     */
+    public static class Modification {
+        private final Task oldTask;
+        private final Task task;
+
+        Modification(Task oldTask, Task task) {
+            this.oldTask = oldTask;
+            this.task = task;
+        }
+
+        /**
+         * Getter for the copy of the task before the modification.
+         * It has the same identifier as the task, and the title and schedule of the task before the modification.
+         *
+         * @return the copy of the old task
+         */
+        public Task getOldTask() {
+            return oldTask;
+        }
+
+        /**
+         * Getter for the modified task, which is in the list.
+         *
+         * @return the task
+         */
+        public Task getTask() {
+            return task;
+        }
+
+        /**
+         * The method that checks whether the time, interval or activity of the task were changed.
+         *
+         * @return <code>true</code> if the schedule of the task was changed
+         */
+        public boolean isScheduleChanged() {
+            return oldTask.getStartEpochSecond() != task.getStartEpochSecond()
+                    || oldTask.getEndEpochSecond() != task.getEndEpochSecond()
+                    || oldTask.getRepeatInterval() != task.getRepeatInterval()
+                    || oldTask.isActive() != task.isActive();
+        }
+    }
+
+    TaskListChange(AbstractTaskList list) {
+        this.list = list;
+    }
+
+    void add(Task task) {
+        added.add(task);
+    }
+
+    void remove(Task task) {
+        removed.add(task);
+    }
+
+    void modify(Task oldTask, Task task) {
+        modified.add(new Modification(oldTask, task));
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Getter for the changed list.
+     *
+     * @return the list
+     */
+    public AbstractTaskList getList() {
+        return list;
+    }
+
+    /**
+     * Getter for the version of the list after this change.
+     *
+     * @return the version of the list
+     *
+     * @see AbstractTaskList#getVersion()
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Getter for the added tasks.
+     *
+     * @return the unmodifiable list of the added tasks
+     */
+    public List<Task> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * Getter for the removed tasks.
+     *
+     * @return the unmodifiable list of the removed tasks
+     */
+    public List<Task> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Getter for the modified tasks.
+     *
+     * @return the unmodifiable list of the modifications
+     */
+    public List<Modification> getModified() {
+        return Collections.unmodifiableList(modified);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskListChange(version " + version + "): added " + added.size()
+                + ", removed " + removed.size() + ", modified " + modified.size();
+    }
+}
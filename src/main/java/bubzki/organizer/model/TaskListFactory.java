@@ -16,6 +16,12 @@ public class TaskListFactory {
                 return new ArrayTaskList();
             case LINKED:
                 return new LinkedTaskList();
+            case INDEXED:
+                return new IndexedTaskList();
+            case CONCURRENT:
+                return new ConcurrentTaskList();
+            case UNROLLED:
+                return new UnrolledTaskList();
             default:
                 throw new IllegalArgumentException("This type doesn't exist.");
         }
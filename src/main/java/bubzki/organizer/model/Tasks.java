@@ -1,6 +1,5 @@
 package bubzki.organizer.model;
 
-import java.lang.reflect.InvocationTargetException;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -14,7 +13,8 @@ public class Tasks {
      * @param from the start time of the period
      * @param to the end time of the period
      *
-     * @return the subset of tasks that fit the specified time period and implements {@link Iterable}
+     * @return the read-only subset of tasks that fit the specified time period and implements {@link Iterable};
+     * the tasks are neither copied nor removed from <code>tasks</code>
      *
      * @throws IllegalArgumentException if...
      * <ul>
@@ -23,27 +23,29 @@ public class Tasks {
      * </ul>
      */
     public static Iterable<Task> incoming(Iterable<Task> tasks, LocalDateTime from, LocalDateTime to) {
+        return Collections.unmodifiableList(incomingList(tasks, from, to));
+    }
+
+    private static List<Task> incomingList(Iterable<Task> tasks, LocalDateTime from, LocalDateTime to) {
         if (from == null || to == null) {
             throw new IllegalArgumentException("Timestamps must equal to zero or be greater than it.");
         }
         if (from.isAfter(to)) {
             throw new IllegalArgumentException("Time \"to\" must be greater than \"from\".");
         }
-        Iterable<Task> clone;
-        try {
-            clone = (Iterable<Task>) tasks.getClass().getMethod("clone").invoke(tasks);
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            System.out.println("Cannot create new object for \"tasks\". Result and your iterable object will be changed too.");
-            e.printStackTrace(System.out);
-            clone = tasks;
-        }
-        for (Iterator<Task> it = clone.iterator(); it.hasNext();) {
-            Task temp = it.next();
-            if (temp.nextTimeAfter(from) == null || temp.nextTimeAfter(from).isAfter(to)) {
-                it.remove();
+        long fromSecond = Task.toEpochSecond(from);
+        long toSecond = Task.toEpochSecond(to);
+        List<Task> result = new ArrayList<>();
+        if (tasks instanceof AbstractTaskList) {
+            ((AbstractTaskList) tasks).forEachIncoming(fromSecond, toSecond, result::add);
+        } else {
+            for (Task temp : tasks) {
+                if (AbstractTaskList.isIncoming(temp, fromSecond, toSecond)) {
+                    result.add(temp);
+                }
             }
         }
-        return clone;
+        return result;
     }
 
     /**
@@ -55,59 +57,126 @@ public class Tasks {
      * @param start the start time of the period
      * @param end the end time of the period
      *
-     * @return sorted table of tasks and their dates of realization
+     * @return sorted read-only table of tasks and their dates of realization
+     *
+     * @throws IllegalArgumentException if...
+     * <ul>
+     * <li>timestamps are <code>null</code>;</li>
+     * <li><code>start</code> is greater than <code>end</code>.</li>
+     * </ul>
      */
     public static SortedMap<LocalDateTime, Set<Task>> calendar(Iterable<Task> tasks, LocalDateTime start, LocalDateTime end) {
-        SortedMap<LocalDateTime, Set<Task>> taskMap = new TreeMap<>();
-        Set<LocalDateTime> timeSet = new HashSet<>();
         Iterable<Task> incomingTasks = Tasks.incoming(tasks, start, end);
-        for (Task temp : incomingTasks) {
-            if (temp.isRepeated()) {
-                timeSet.addAll(Tasks.getTimelineOfRepeatedTask(temp, start, end));
-            } else {
-                timeSet.add(temp.getTime());
+        return TaskCalendar.build(incomingTasks, Task.toEpochSecond(start), Task.toEpochSecond(end));
+    }
+
+    /**
+     * The method that gives the calendar of tasks for a given period date by date in ascending order,
+     * the same dates and sets as {@link #calendar(Iterable, LocalDateTime, LocalDateTime)}.
+     * The dates are computed when they are requested, so the memory depends on the number of tasks
+     * scheduled in the period and not on the number of their executions.
+     * The tasks must not be changed while the dates are iterated.
+     *
+     * @param tasks the set of tasks that implements {@link Iterable}
+     * @param start the start time of the period
+     * @param end the end time of the period
+     *
+     * @return the iterator of the dates and read-only sets of tasks to be performed at them
+     *
+     * @throws IllegalArgumentException if...
+     * <ul>
+     * <li>timestamps are <code>null</code>;</li>
+     * <li><code>start</code> is greater than <code>end</code>.</li>
+     * </ul>
+     */
+    public static Iterator<Map.Entry<LocalDateTime, Set<Task>>> calendarIterator(Iterable<Task> tasks,
+                                                                                  LocalDateTime start,
+                                                                                  LocalDateTime end) {
+        TaskCalendar.Merger merger = new TaskCalendar.Merger(incomingArray(tasks, start, end),
+                Task.toEpochSecond(start), Task.toEpochSecond(end));
+        return new Iterator<Map.Entry<LocalDateTime, Set<Task>>>() {
+            @Override
+            public boolean hasNext() {
+                return merger.hasNext();
             }
-        }
-        for (LocalDateTime tempTime : timeSet) {
-            Set<Task> tasksSet = new HashSet<>();
-            taskMap.put(tempTime, tasksSet);
-            for (Task tempTask : incomingTasks) {
-                if (tempTask.isRepeated()) {
-                    for (LocalDateTime tempTaskTime : Tasks.getTimelineOfRepeatedTask(tempTask, start, end)) {
-                        if (tempTime.equals(tempTaskTime)) {
-                            tasksSet.add(tempTask);
-                            break;
-                        }
-                    }
-                } else {
-                    if (tempTime.equals(tempTask.getTime())) {
-                        tasksSet.add(tempTask);
-                    }
-                }
+
+            @Override
+            public Map.Entry<LocalDateTime, Set<Task>> next() {
+                LocalDateTime time = Task.ofEpochSecond(merger.peekTime());
+                Set<Task> group = new LinkedHashSet<>();
+                merger.next(group::add);
+                return new AbstractMap.SimpleImmutableEntry<>(time, Collections.unmodifiableSet(group));
             }
+        };
+    }
+
+    /**
+     * The method that builds a page of the calendar of tasks for a given period: the first dates after
+     * <code>after</code> until the page has <code>maxDates</code> dates or <code>maxOccurrences</code> executions.
+     * The page ends with a whole date, so it can have more executions than <code>maxOccurrences</code>
+     * if the last date has several tasks, and it has at least one date if the period has any.
+     * The next page is built with {@link CalendarPage#getNext()} as <code>after</code>,
+     * so any period can be paged through with the memory that depends on the size of the page
+     * and the number of tasks scheduled in the period.
+     *
+     * @param tasks the set of tasks that implements {@link Iterable}
+     * @param after the start time of the period, the cursor of the previous page
+     * @param end the end time of the period
+     * @param maxDates the maximum number of dates on the page
+     * @param maxOccurrences the number of executions after which the page ends
+     *
+     * @return the page of the calendar
+     *
+     * @throws IllegalArgumentException if...
+     * <ul>
+     * <li>timestamps are <code>null</code>;</li>
+     * <li><code>after</code> is greater than <code>end</code>;</li>
+     * <li><code>maxDates</code> or <code>maxOccurrences</code> is not positive.</li>
+     * </ul>
+     */
+    public static CalendarPage calendarPage(Iterable<Task> tasks, LocalDateTime after, LocalDateTime end,
+                                            int maxDates, long maxOccurrences) {
+        if (maxDates <= 0 || maxOccurrences <= 0) {
+            throw new IllegalArgumentException("The size of the page must be greater than zero.");
+        }
+        TaskCalendar.Merger merger = new TaskCalendar.Merger(incomingArray(tasks, after, end),
+                Task.toEpochSecond(after), Task.toEpochSecond(end));
+        TaskCalendar.Builder builder = new TaskCalendar.Builder();
+        int dates = 0;
+        long occurrences = 0;
+        long last = 0;
+        while (merger.hasNext() && dates < maxDates && occurrences < maxOccurrences) {
+            long time = merger.peekTime();
+            occurrences += merger.next(task -> builder.add(time, task));
+            last = time;
+            dates++;
         }
-        return taskMap;
+        return new CalendarPage(builder.build(), merger.hasNext() ? Task.ofEpochSecond(last) : null, occurrences);
     }
 
     /**
-     * The method that returns a set of points in a repeating task's time interval,
-     * that are fit the specified time period.
+     * The method that counts the executions of tasks in a given period up to <code>limit</code>.
+     * The executions are counted by the schedule of every task, so the count does not depend on their number.
      *
-     * @param repeatedTask the repeating task
+     * @param tasks the set of tasks that implements {@link Iterable}
      * @param start the start time of the period
      * @param end the end time of the period
+     * @param limit the number of executions at which the counting stops
      *
-     * @return the set of points in a task's time interval
+     * @return the number of executions or <code>limit</code> if there are more of them
+     *
+     * @throws IllegalArgumentException if...
+     * <ul>
+     * <li>timestamps are <code>null</code>;</li>
+     * <li><code>start</code> is greater than <code>end</code>.</li>
+     * </ul>
      */
-    private static List<LocalDateTime> getTimelineOfRepeatedTask(Task repeatedTask, LocalDateTime start, LocalDateTime end) {
-        List<LocalDateTime> taskTimingSet = new LinkedList<>();
-        for (LocalDateTime i = repeatedTask.getStartTime();
-                            i.isBefore(repeatedTask.getEndTime()) || i.isEqual(repeatedTask.getEndTime());
-                             i = i.plusSeconds(repeatedTask.getRepeatInterval())) {
-            if (i.isAfter(start) && (i.isBefore(end) || i.isEqual(end))) {
-                taskTimingSet.add(i);
-            }
-        }
-        return taskTimingSet;
+    public static long countOccurrences(Iterable<Task> tasks, LocalDateTime start, LocalDateTime end, long limit) {
+        return TaskCalendar.countExecutions(incomingArray(tasks, start, end),
+                Task.toEpochSecond(start), Task.toEpochSecond(end), limit);
+    }
+
+    private static Task[] incomingArray(Iterable<Task> tasks, LocalDateTime from, LocalDateTime to) {
+        return incomingList(tasks, from, to).toArray(new Task[0]);
     }
 }
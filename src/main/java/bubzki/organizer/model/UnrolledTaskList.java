@@ -0,0 +1,552 @@
+package bubzki.organizer.model;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The unrolled linked task list which keeps tasks in arrays of fixed size (chunks).
+ * The index of the first task of every chunk is kept in a separate array,
+ * so the access by index costs a binary search over chunks, and O(1) for sequential access.
+ * Removing a task shifts only the tasks of its chunk, and a task costs about one reference
+ * instead of a node with three references.
+ */
+public class UnrolledTaskList extends AbstractTaskList {
+    private static final long serialVersionUID = 1L;
+    private final static int DEFAULT_CAPACITY = 10;
+    private final static float RATIO = 1.5f;
+    private final static int CHUNK_SIZE = 64;
+    private final static int MERGE_SIZE = CHUNK_SIZE / 2;
+    private int size;
+    private Chunk[] chunks = new Chunk[DEFAULT_CAPACITY];
+    private int[] offsets = new int[DEFAULT_CAPACITY];
+    private int chunkCount;
+    private int indexedChunks;
+    private int lastChunk;
+    private transient TaskIdIndex ids = new TaskIdIndex(this::getTask);
+
+    /**
+     * The class for creating chunks of the list.
+     * A chunk has an array of tasks filled from the beginning.
+     */
+    private static class Chunk {
+        final Task[] tasks = new Task[CHUNK_SIZE];
+        int size;
+    }
+
+    /**
+     * The method that recalculates the indexes of the first tasks of chunks
+     * from the first chunk that was changed.
+     */
+    private void reindex() {
+        for (int i = indexedChunks; i < chunkCount; ++i) {
+            offsets[i] = (i == 0 ? 0 : offsets[i - 1] + chunks[i - 1].size);
+        }
+        indexedChunks = chunkCount;
+    }
+
+    /**
+     * The method that searches for the chunk with the task with the specified index.
+     * The chunk of the last access and the next chunk are checked before the binary search.
+     *
+     * @param index the specified task index
+     *
+     * @return the number of the chunk
+     */
+    private int chunkOf(int index) {
+        if (indexedChunks < chunkCount) {
+            reindex();
+        }
+        if (lastChunk < chunkCount && offsets[lastChunk] <= index) {
+            if (index < offsets[lastChunk] + chunks[lastChunk].size) {
+                return lastChunk;
+            }
+            if (lastChunk + 1 < chunkCount && index < offsets[lastChunk + 1] + chunks[lastChunk + 1].size) {
+                return ++lastChunk;
+            }
+        }
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        lastChunk = low;
+        return low;
+    }
+
+    /**
+     * The method that increases the capacity of the arrays of chunks, if necessary.
+     *
+     * @param minCapacity the desired minimum number of chunks
+     */
+    private void ensureChunkCapacity(int minCapacity) {
+        if (minCapacity > chunks.length) {
+            int capacity = Math.max(Math.round(chunks.length * RATIO), minCapacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+    }
+
+    /**
+     * The method that removes the chunk with the specified number.
+     *
+     * @param chunk the number of the chunk
+     */
+    private void removeChunk(int chunk) {
+        System.arraycopy(chunks, chunk + 1, chunks, chunk, chunkCount - chunk - 1);
+        chunks[--chunkCount] = null;
+    }
+
+    /**
+     * The method that removes the task with the specified index.
+     * A chunk is merged with the next one when both of them together fill no more than half of a chunk.
+     *
+     * @param index the specified task index
+     */
+    private void removeAt(int index) {
+        ids.removed(index, size);
+        int number = chunkOf(index);
+        Chunk chunk = chunks[number];
+        int position = index - offsets[number];
+        Task task = chunk.tasks[position];
+        System.arraycopy(chunk.tasks, position + 1, chunk.tasks, position, chunk.size - position - 1);
+        chunk.tasks[--chunk.size] = null;
+        size--;
+        if (chunk.size == 0) {
+            removeChunk(number);
+        } else if (number + 1 < chunkCount && chunk.size + chunks[number + 1].size <= MERGE_SIZE) {
+            Chunk next = chunks[number + 1];
+            System.arraycopy(next.tasks, 0, chunk.tasks, chunk.size, next.size);
+            chunk.size += next.size;
+            removeChunk(number + 1);
+        }
+        indexedChunks = Math.min(indexedChunks, number);
+        fireRemoved(task);
+    }
+
+    /**
+     * The method that add a task to the end of the last chunk,
+     * or to a new chunk if the last chunk is full.
+     *
+     * @param task a specified task that needs to add
+     *
+     * @throws NullPointerException if task is null pointer
+     */
+    @Override
+    public void add(Task task) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Cannot add null pointer.");
+        }
+        ids.added(task, size);
+        append(task);
+        fireAdded(task);
+    }
+
+    /**
+     * The method that puts a task to the end of the last chunk, or to a new chunk if the last chunk is full.
+     *
+     * @param task a non-null task
+     */
+    private void append(Task task) {
+        if (chunkCount == 0 || chunks[chunkCount - 1].size == CHUNK_SIZE) {
+            ensureChunkCapacity(chunkCount + 1);
+            chunks[chunkCount] = new Chunk();
+            offsets[chunkCount] = size;
+            if (indexedChunks == chunkCount) {
+                indexedChunks++;
+            }
+            chunkCount++;
+        }
+        Chunk chunk = chunks[chunkCount - 1];
+        chunk.tasks[chunk.size++] = task;
+        size++;
+    }
+
+    /**
+     * The method that removes a task from the list.
+     * The task is found through the index of identifiers.
+     * If there were several such tasks in the list,
+     * it will delete such task, which was added the first.
+     *
+     * @param task a specified task that needs to remove
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     *
+     * @throws NullPointerException if task is null pointer
+     */
+    @Override
+    public boolean remove(Task task) throws NullPointerException {
+        if (task == null) {
+            throw new NullPointerException("Cannot remove null pointer.");
+        }
+        return removeById(task.getId());
+    }
+
+    /**
+     * The method that removes the task with the specified identifier from the list.
+     *
+     * @param id the task identifier
+     *
+     * @return "true" if the task on the list, "false" if the task not on the list
+     */
+    @Override
+    public boolean removeById(long id) {
+        int index = ids.indexOf(id, size);
+        if (index == -1) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * The method that returns the position of the first task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the position of the task or -1 if there is no such task in the list
+     */
+    @Override
+    public int indexOfId(long id) {
+        return ids.indexOf(id, size);
+    }
+
+    /**
+     * The method that returns the task with the specified identifier.
+     *
+     * @param id the task identifier
+     *
+     * @return the task with the specified identifier or <code>null</code> if there is no such task in the list
+     */
+    @Override
+    public Task getById(long id) {
+        int index = ids.indexOf(id, size);
+        return (index == -1 ? null : getTask(index));
+    }
+
+    /**
+     * The method that removes all tasks that satisfy the filter in one pass,
+     * packing the kept tasks into full chunks.
+     * The filter is checked for all tasks before the list is changed.
+     *
+     * @param filter the predicate which returns <code>true</code> for tasks that need to remove
+     *
+     * @return "true" if any task was removed
+     *
+     * @throws NullPointerException if <code>filter</code> is null pointer
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) throws NullPointerException {
+        if (filter == null) {
+            throw new NullPointerException("Filter must not be null.");
+        }
+        BitSet removed = new BitSet(size);
+        int index = 0;
+        for (int i = 0; i < chunkCount; ++i) {
+            Chunk chunk = chunks[i];
+            for (int j = 0; j < chunk.size; ++j, ++index) {
+                if (filter.test(chunk.tasks[j])) {
+                    removed.set(index);
+                }
+            }
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+        Chunk[] oldChunks = chunks;
+        int oldChunkCount = chunkCount;
+        clear();
+        index = 0;
+        beginChange();
+        for (int i = 0; i < oldChunkCount; ++i) {
+            Chunk chunk = oldChunks[i];
+            for (int j = 0; j < chunk.size; ++j, ++index) {
+                if (removed.get(index)) {
+                    fireRemoved(chunk.tasks[j]);
+                } else {
+                    append(chunk.tasks[j]);
+                }
+            }
+        }
+        endChange();
+        return true;
+    }
+
+    /**
+     * The method that replaces every task with the result of the operator in place.
+     *
+     * @param operator the operator that returns the new task for every task
+     *
+     * @throws NullPointerException if <code>operator</code> or any of its results is null pointer,
+     * in which case the list is not changed
+     */
+    @Override
+    public void replaceAll(UnaryOperator<Task> operator) throws NullPointerException {
+        Task[] replaced = replacements(operator);
+        int index = 0;
+        beginChange();
+        for (int i = 0; i < chunkCount; ++i) {
+            Chunk chunk = chunks[i];
+            for (int j = 0; j < chunk.size; ++j, ++index) {
+                Task oldTask = chunk.tasks[j];
+                chunk.tasks[j] = replaced[index];
+                fireReplaced(oldTask, replaced[index]);
+            }
+        }
+        ids.invalidate();
+        endChange();
+    }
+
+    /**
+     * The method that increases the capacity of the arrays of chunks, if necessary,
+     * so the list can hold at least <code>minCapacity</code> tasks without growing them.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        ensureChunkCapacity((minCapacity + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    /**
+     * The method that removes all tasks from the list.
+     */
+    private void clear() {
+        ids.invalidate();
+        chunks = new Chunk[DEFAULT_CAPACITY];
+        offsets = new int[DEFAULT_CAPACITY];
+        chunkCount = 0;
+        indexedChunks = 0;
+        lastChunk = 0;
+        size = 0;
+    }
+
+    /**
+     * The method that returns the number of tasks in the list.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the number of chunks.
+     *
+     * @return the number of chunks of the list
+     */
+    int chunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * The method that returns the task that is at the specified location in list,
+     * the first task has an index of 0.
+     *
+     * @param index the specified task index
+     *
+     * @return a task with the specified index
+     *
+     * @throws IndexOutOfBoundsException if index is out of the list range.
+     */
+    @Override
+    public Task getTask(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("The index is out of range.");
+        }
+        int number = chunkOf(index);
+        return chunks[number].tasks[index - offsets[number]];
+    }
+
+    @Override
+    protected UnrolledTaskList getTaskList() {
+        return new UnrolledTaskList();
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Task}.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<Task>() {
+            private int currentElement = -1;
+            private int nextElement;
+
+            @Override
+            public boolean hasNext() {
+                return nextElement < size;
+            }
+
+            @Override
+            public Task next() throws NoSuchElementException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iteration has no more elements.");
+                }
+                currentElement = nextElement++;
+                return getTask(currentElement);
+            }
+
+            @Override
+            public void remove() throws IllegalStateException {
+                if (currentElement == -1) {
+                    throw new IllegalStateException();
+                }
+                removeAt(currentElement);
+                nextElement = currentElement;
+                currentElement = -1;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder tempString = new StringBuilder("UnrolledTaskList(" + size() + "): [");
+        if (size() > 0) {
+            for (Task temp : this) {
+                tempString.append(temp.toString()).append(";").append("\n\t\t\t\t\t");
+            }
+            tempString.delete(tempString.length() - 7, tempString.length());
+        }
+        return tempString.append("]").toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UnrolledTaskList tempUnrolled = (UnrolledTaskList) o;
+        if (size != tempUnrolled.size) {
+            return false;
+        }
+        for (Iterator<Task> i1 = this.iterator(), i2 = tempUnrolled.iterator(); i1.hasNext();) {
+            if (!i1.next().equals(i2.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(size);
+        for (Task temp : this) {
+            result = 31 * result + temp.hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public UnrolledTaskList clone() throws CloneNotSupportedException {
+        UnrolledTaskList clone = (UnrolledTaskList) super.clone();
+        clone.ids = new TaskIdIndex(clone::getTask);
+        clone.clear();
+        clone.ensureCapacity(size);
+        for (Task temp : this) {
+            clone.add(temp.clone());
+        }
+        return clone;
+    }
+
+    /**
+     * Returns a spliterator over the chunks of the list, which splits the range of chunks in halves.
+     *
+     * @return a Spliterator.
+     */
+    @Override
+    public Spliterator<Task> spliterator() {
+        if (indexedChunks < chunkCount) {
+            reindex();
+        }
+        return new ChunkSpliterator(0, 0, chunkCount);
+    }
+
+    /**
+     * The spliterator over a range of chunks. It reads the chunks and their indexes directly
+     * and does not change the state of the list, so the parts can be traversed in parallel.
+     */
+    private class ChunkSpliterator implements Spliterator<Task> {
+        private int chunk;
+        private int position;
+        private final int fence;
+
+        /**
+         * Constructor that creates the spliterator from the task at <code>position</code>
+         * in <code>chunk</code> to the end of the chunk before <code>fence</code>.
+         *
+         * @param chunk the number of the first chunk
+         * @param position the position of the first task in the chunk
+         * @param fence the number of the chunk after the last one
+         */
+        ChunkSpliterator(int chunk, int position, int fence) {
+            this.chunk = chunk;
+            this.position = position;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Task> action) {
+            while (chunk < fence && position == chunks[chunk].size) {
+                chunk++;
+                position = 0;
+            }
+            if (chunk >= fence) {
+                return false;
+            }
+            action.accept(chunks[chunk].tasks[position++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Task> action) {
+            for (; chunk < fence; chunk++, position = 0) {
+                Chunk current = chunks[chunk];
+                for (; position < current.size; ++position) {
+                    action.accept(current.tasks[position]);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Task> trySplit() {
+            int middle = (chunk + fence) >>> 1;
+            if (middle <= chunk) {
+                return null;
+            }
+            ChunkSpliterator prefix = new ChunkSpliterator(chunk, position, middle);
+            chunk = middle;
+            position = 0;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            int end = (fence == chunkCount ? size : offsets[fence]);
+            return chunk >= fence ? 0 : end - offsets[chunk] - position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    @Override
+    public Stream<Task> getStream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
@@ -7,34 +7,99 @@ import javafx.scene.image.Image;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import bubzki.organizer.model.Task;
-import bubzki.organizer.model.Tasks;
+import bubzki.organizer.model.TaskListChange;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The class that is responsible for the functionality of notifications.
+ * The next notification of every task is kept in a priority queue by its time,
+ * and a job is scheduled on the executor when the earliest one is due,
+ * so the cost of a notification does not depend on the number of tasks.
+ * Several notificators can share one executor without a thread for each of them.
  */
-public class Notificator extends Thread {
+public class Notificator {
     private Iterable<Task> tasksList;
     private final static DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
     private final static int DEFAULT_NOTIFICATION_TIME = 60;
+    private final static long MAX_WAIT_MILLIS = 60_000;
+    private final static long MAX_DELAY_SECONDS = 5;
     private int notificationTime;
     private final Image icon;
+    private final ScheduledExecutorService executor;
+    private final boolean ownExecutor;
+    private final Object lock = new Object();
+    private final PriorityQueue<Notification> queue = new PriorityQueue<>();
+    private final Map<Task, Notification> planned = new IdentityHashMap<>();
+    private State state = State.NEW;
+    private ScheduledFuture<?> job;
+    private long jobTime;
+
+    /**
+     * The states of the notificator.
+     */
+    public enum State {
+        NEW, RUNNING, PAUSED, SHUTDOWN
+    }
+
+    /**
+     * The class of planned notifications about the execution of the task.
+     * A notification is valid only while it is the planned one of its task,
+     * so the outdated notifications are skipped instead of being searched in the queue.
+     */
+    private static class Notification implements Comparable<Notification> {
+        final Task task;
+        final long time;
+
+        /**
+         * Constructor that creates the notification.
+         *
+         * @param task the task
+         * @param time the execution time of the task in epoch seconds
+         */
+        Notification(Task task, long time) {
+            this.task = task;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(Notification other) {
+            return Long.compare(time, other.time);
+        }
+    }
+
+    /**
+     * The constructor with list for notification, icon for alert and executor that runs notification jobs.
+     * The executor is not shut down by the notificator.
+     *
+     * @param tasksList list with tasks.
+     * @param icon icon that will display in alert.
+     * @param executor executor that runs notification jobs.
+     */
+    public Notificator(Iterable<Task> tasksList, Image icon, ScheduledExecutorService executor) {
+        this(tasksList, icon, executor, false);
+    }
 
     /**
      * The constructor with list for notification and icon for alert.
+     * The notificator runs its jobs on its own daemon thread.
      *
      * @param tasksList list with tasks.
      * @param icon icon that will display in alert.
      */
     public Notificator(Iterable<Task> tasksList, Image icon) {
-        this.tasksList = tasksList;
-        this.icon = icon;
-        notificationTime = DEFAULT_NOTIFICATION_TIME;
+        this(tasksList, icon, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Notificator");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
     }
 
     /**
@@ -43,42 +108,248 @@ public class Notificator extends Thread {
      * @param tasksList list with tasks.
      */
     public Notificator(Iterable<Task> tasksList) {
-        this.tasksList = tasksList;
-        this.icon = new Image(Objects.requireNonNull(RunOrganizer.class.getResource("OrganizerIcon.png")).toExternalForm());
+        this(tasksList, new Image(Objects.requireNonNull(RunOrganizer.class.getResource("OrganizerIcon.png")).toExternalForm()));
+    }
+
+    private Notificator(Iterable<Task> tasksList, Image icon, ScheduledExecutorService executor, boolean ownExecutor) {
+        this.icon = icon;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
         notificationTime = DEFAULT_NOTIFICATION_TIME;
+        setTasksList(tasksList);
     }
 
     /**
-     * The method that checks whether tasks are suitable for displaying a notification.
+     * The method that returns the current time in epoch milliseconds of the local date-time.
+     *
+     * @return the current time in milliseconds
+     */
+    private static long currentMillis() {
+        LocalDateTime now = LocalDateTime.now();
+        return now.toEpochSecond(ZoneOffset.UTC) * 1000 + now.getNano() / 1_000_000;
+    }
+
+    /**
+     * The method that plans the next notification of the task whose execution is after the specified time.
+     * Must be called while holding the lock.
+     *
+     * @param task the task
+     * @param after the time in epoch seconds
+     */
+    private void plan(Task task, long after) {
+        long next = task.nextTimeAfter(after);
+        if (next == Task.NO_TIME) {
+            planned.remove(task);
+        } else {
+            Notification notification = new Notification(task, next);
+            planned.put(task, notification);
+            queue.add(notification);
+        }
+    }
+
+    /**
+     * The method that plans the notification of the task from the current time.
+     * Must be called while holding the lock.
+     *
+     * @param task the task
+     */
+    private void plan(Task task) {
+        plan(task, currentMillis() / 1000 + notificationTime - 1);
+    }
+
+    /**
+     * The method that plans again notifications of all tasks.
+     * Must be called while holding the lock.
+     */
+    private void planAll() {
+        queue.clear();
+        planned.clear();
+        for (Task temp : tasksList) {
+            plan(temp);
+        }
+        schedule();
+    }
+
+    /**
+     * The method that returns the earliest valid notification.
+     * Must be called while holding the lock.
+     *
+     * @return the earliest notification or <code>null</code> if there are no notifications
+     */
+    private Notification peek() {
+        Notification head = queue.peek();
+        while (head != null && planned.get(head.task) != head) {
+            queue.poll();
+            head = queue.peek();
+        }
+        return head;
+    }
+
+    /**
+     * The method that schedules the job for the earliest notification, if the notificator is running.
+     * The job is scheduled no later than in a minute, so the changes of the system clock are taken into account.
+     * Must be called while holding the lock.
+     */
+    private void schedule() {
+        if (state != State.RUNNING) {
+            return;
+        }
+        Notification head = peek();
+        if (job != null) {
+            if (head != null && jobTime == head.time && !job.isDone()) {
+                return;
+            }
+            job.cancel(false);
+            job = null;
+        }
+        if (head != null) {
+            long delay = Math.min((head.time - notificationTime) * 1000 - currentMillis(), MAX_WAIT_MILLIS);
+            jobTime = head.time;
+            job = executor.schedule(this::fire, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The job that takes the due notifications, shows them and schedules the next job.
+     * The alert is shown later by the JavaFX thread, so it checks the state again
+     * and is not shown if the notificator was shut down in the meantime.
+     */
+    private void fire() {
+        Map.Entry<LocalDateTime, Set<Task>> entry;
+        synchronized (lock) {
+            if (state != State.RUNNING) {
+                return;
+            }
+            try {
+                entry = notifyTask();
+            } finally {
+                job = null;
+                schedule();
+            }
+        }
+        if (entry != null) {
+            Platform.runLater(() -> {
+                if (getState() != State.SHUTDOWN) {
+                    showAlert(entry);
+                }
+            });
+        }
+    }
+
+    /**
+     * The method that takes the tasks of the earliest notification if it is due.
+     * Must be called while holding the lock.
      *
      * @return tasks with start time if are suitable for notification, <code>null</code> if none suitable.
      */
     private Map.Entry<LocalDateTime, Set<Task>> notifyTask() {
-        for (Map.Entry<LocalDateTime, Set<Task>> entry : Tasks.calendar(tasksList, LocalDateTime.now(), LocalDateTime.now().plusMinutes(1).plusSeconds(notificationTime)).entrySet()) {
-            if (entry.getKey().withNano(0).isEqual(LocalDateTime.now().plusSeconds(notificationTime).withNano(0))) {
-                return entry;
+        Notification head = peek();
+        if (head == null) {
+            return null;
+        }
+        long delayMillis = currentMillis() - (head.time - notificationTime) * 1000;
+        if (delayMillis < 0) {
+            return null;
+        }
+        long time = head.time;
+        Set<Task> tasks = new LinkedHashSet<>();
+        while (head != null && head.time == time) {
+            queue.poll();
+            if (planned.get(head.task) == head) {
+                tasks.add(head.task);
+                plan(head.task, time);
             }
+            head = queue.peek();
+        }
+        if (delayMillis / 1000 > MAX_DELAY_SECONDS) {
+            return null;
         }
-        return null;
+        return new AbstractMap.SimpleImmutableEntry<>(LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC), tasks);
     }
 
-    @Override
-    public void run() {
-        while (true) {
-            try {
-                Map.Entry<LocalDateTime, Set<Task>> entry = notifyTask();
-                if (entry != null) {
-                    Platform.runLater(() -> {
-                        showAlert(entry);
-                    });
+    /**
+     * The method that starts notifications.
+     *
+     * @throws IllegalStateException if the notificator was already started
+     */
+    public void start() throws IllegalStateException {
+        synchronized (lock) {
+            if (state != State.NEW) {
+                throw new IllegalStateException("Notificator was already started.");
+            }
+            state = State.RUNNING;
+            schedule();
+        }
+    }
+
+    /**
+     * The method that pauses notifications. Changes of tasks are still planned while paused.
+     */
+    public void pause() {
+        synchronized (lock) {
+            if (state == State.RUNNING) {
+                state = State.PAUSED;
+                if (job != null) {
+                    job.cancel(false);
+                    job = null;
                 }
-                sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
             }
         }
     }
 
+    /**
+     * The method that resumes paused notifications.
+     * The notifications that were due during the pause are skipped.
+     */
+    public void resume() {
+        synchronized (lock) {
+            if (state == State.PAUSED) {
+                state = State.RUNNING;
+                planAll();
+            }
+        }
+    }
+
+    /**
+     * The method that stops notifications. A running job takes the notifications under the lock,
+     * so after this method no notifications are taken, and the alerts that were posted to the JavaFX thread
+     * but not shown yet are dropped. If the notificator has its own executor, the executor is shut down
+     * and awaited too.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     *
+     * @return <code>true</code> if the notificator was stopped in time and <code>false</code> if the timeout elapsed
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            state = State.SHUTDOWN;
+            if (job != null) {
+                job.cancel(false);
+                job = null;
+            }
+        }
+        if (ownExecutor) {
+            executor.shutdown();
+            return executor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Getter for the state of the notificator.
+     *
+     * @return the state of the notificator
+     */
+    public State getState() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
     /**
      * The method that creates and displays notification alert.
      *
@@ -118,16 +389,46 @@ public class Notificator extends Thread {
      * @param seconds time in seconds.
      */
     public void setNotificationTime(int seconds) {
-        notificationTime = seconds;
+        synchronized (lock) {
+            notificationTime = seconds;
+            planAll();
+        }
     }
 
     /**
-     * Setter for the list of task for notification.
+     * Setter for the list of task for notification. Notifications of all tasks are planned again.
      *
      * @param tasksList list of tasks.
      */
     public void setTasksList(Iterable<Task> tasksList) {
-        this.tasksList = tasksList;
+        synchronized (lock) {
+            this.tasksList = tasksList;
+            planAll();
+        }
+    }
+
+    /**
+     * The method that applies the change of the task list to the notifications:
+     * cancels the notifications of the removed tasks and plans the added tasks
+     * and the tasks which schedule was modified. It can be added as the listener of the task list.
+     *
+     * @param change the change of the task list
+     */
+    public void listChanged(TaskListChange change) {
+        synchronized (lock) {
+            for (Task task : change.getRemoved()) {
+                planned.remove(task);
+            }
+            for (Task task : change.getAdded()) {
+                plan(task);
+            }
+            for (TaskListChange.Modification modification : change.getModified()) {
+                if (modification.isScheduleChanged()) {
+                    plan(modification.getTask());
+                }
+            }
+            schedule();
+        }
     }
 
 }
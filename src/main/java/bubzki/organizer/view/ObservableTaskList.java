@@ -0,0 +1,195 @@
+package bubzki.organizer.view;
+
+import bubzki.organizer.model.AbstractTaskList;
+import bubzki.organizer.model.Task;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * The class that shows a task list to JavaFX as an {@link javafx.collections.ObservableList} without copying it.
+ * The tasks are read from the task list on request, and the changes made through this class
+ * are applied to the task list and reported to the listeners as fine-grained changes:
+ * an added or removed task changes one row, and an edited task is reported as replaced by itself,
+ * so a table redraws only its row.
+ * Tasks can be added only to the end of the list, as the task lists do not insert.
+ * The changes made to the task list directly are not reported.
+ */
+public class ObservableTaskList extends ObservableListBase<Task> {
+    private final AbstractTaskList list;
+
+    /**
+     * Constructor that creates the observable view of the task list.
+     *
+     * @param list the task list
+     *
+     * @throws NullPointerException if list is null pointer
+     */
+    public ObservableTaskList(AbstractTaskList list) throws NullPointerException {
+        if (list == null) {
+            throw new NullPointerException("The task list cannot be null pointer.");
+        }
+        this.list = list;
+    }
+
+    /**
+     * The method that returns the task that is at the specified location in the task list.
+     *
+     * @param index the specified task index
+     *
+     * @return a task with the specified index
+     *
+     * @throws IndexOutOfBoundsException if index is out of the list range.
+     */
+    @Override
+    public Task get(int index) throws IndexOutOfBoundsException {
+        return list.getTask(index);
+    }
+
+    /**
+     * The method that returns the number of tasks in the task list.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    /**
+     * The method that adds the task to the end of the task list and reports one added row.
+     *
+     * @param index the index of the task, it must be equal to the size of the list
+     * @param task a specified task that needs to add
+     *
+     * @throws UnsupportedOperationException if index is not the end of the list.
+     * @throws NullPointerException if task is null pointer
+     */
+    @Override
+    public void add(int index, Task task) throws UnsupportedOperationException, NullPointerException {
+        if (index != size()) {
+            throw new UnsupportedOperationException("Tasks can be added only to the end of the list.");
+        }
+        list.add(task);
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    /**
+     * The method that adds all tasks to the end of the task list and reports them as one change.
+     *
+     * @param tasks the tasks that need to add
+     *
+     * @return "true" if the list was changed
+     *
+     * @throws NullPointerException if <code>tasks</code> or any of the tasks is null pointer
+     */
+    @Override
+    public boolean addAll(Collection<? extends Task> tasks) throws NullPointerException {
+        int from = size();
+        if (!list.addAll(tasks)) {
+            return false;
+        }
+        beginChange();
+        nextAdd(from, size());
+        endChange();
+        return true;
+    }
+
+    /**
+     * The method that removes the task at the specified location from the task list and reports one removed row.
+     *
+     * @param index the specified task index
+     *
+     * @return the removed task
+     *
+     * @throws IndexOutOfBoundsException if index is out of the list range.
+     */
+    @Override
+    public Task remove(int index) throws IndexOutOfBoundsException {
+        Task task = get(index);
+        list.remove(task);
+        beginChange();
+        nextRemove(index, task);
+        endChange();
+        return task;
+    }
+
+    /**
+     * The method that removes the task from the task list and reports one removed row.
+     *
+     * @param o the task that needs to remove
+     *
+     * @return "true" if the task was in the list
+     */
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    /**
+     * The method that changes the task in place through {@link AbstractTaskList#update(Task, Consumer)}
+     * and reports it as replaced by itself, so the row of the task is redrawn.
+     * The row is reported even if the change fails, because the task could be changed partly.
+     *
+     * @param task the task of the list
+     * @param change the action that changes the task
+     *
+     * @return "true" if the task is in the list, "false" if the task not on the list, in which case it is not changed
+     *
+     * @throws NullPointerException if <code>task</code> or <code>change</code> is null pointer
+     *
+     * @see ListChangeListener.Change#wasReplaced()
+     */
+    public boolean update(Task task, Consumer<? super Task> change) throws NullPointerException {
+        int index = indexOf(task);
+        if (index < 0) {
+            return false;
+        }
+        try {
+            list.update(task, change);
+        } finally {
+            beginChange();
+            nextSet(index, task);
+            endChange();
+        }
+        return true;
+    }
+
+    /**
+     * The method that returns the index of the task in the task list.
+     * Tasks are equal by identifiers, so the index is found by {@link AbstractTaskList#indexOfId(long)}
+     * through the index of identifiers of the task list, without iterating it.
+     *
+     * @param o the task to search for
+     *
+     * @return the index of the first equal task or -1 if there is no such task in the list
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Task)) {
+            return -1;
+        }
+        return list.indexOfId(((Task) o).getId());
+    }
+
+    /**
+     * The method that checks whether the task is in the task list.
+     *
+     * @param o the task to search for
+     *
+     * @return "true" if the list has an equal task
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+}
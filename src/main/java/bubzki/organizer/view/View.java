@@ -5,6 +5,7 @@ import bubzki.organizer.model.*;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -28,11 +29,15 @@ public abstract class View {
     protected final static int MIN_SPINNER_VALUE = 0;
     protected final static int MAX_SPINNER_VALUE = Integer.MAX_VALUE;
     protected final static int INIT_SPINNER_VALUE = 0;
+    protected final static long MAX_CALENDAR_OCCURRENCES = 100000;
 
     protected LocalDateTime cachedFromField;
     protected LocalDateTime cachedToField;
+    protected LocalDateTime nextCalendarPage;
 
-    protected final AbstractTaskList list = TaskListFactory.createTaskList(ListTypes.types.ARRAY);
+    protected final AbstractTaskList list = TaskListFactory.createTaskList(ListTypes.types.CONCURRENT);
+    protected final ObservableTaskList observableList = new ObservableTaskList(list);
+    protected final CalendarCache calendarCache = new CalendarCache(list);
 
     public final Logger logger = Logger.getLogger(View.class);
 
@@ -79,6 +84,13 @@ public abstract class View {
     @FXML
     protected RadioButton repeatRadioFalse;
 
+    @FXML
+    protected Button addButton;
+    @FXML
+    protected Button editButton;
+    @FXML
+    protected Button removeButton;
+
     @FXML
     protected TableView<View.CalendarTableHelper> calendarTable;
     @FXML
@@ -90,6 +102,10 @@ public abstract class View {
     protected DateTimePicker fromField;
     @FXML
     protected DateTimePicker toField;
+    @FXML
+    protected Button nextPageButton;
+    @FXML
+    protected Label calendarPageLabel;
 
     /**
      * The method that sets parameters to UI elements.
@@ -154,21 +170,66 @@ public abstract class View {
     }
 
     /**
-     * The method that loads tasks to the table in Main tab.
+     * The method that shows tasks in the table in Main tab. The table observes the list through
+     * {@link ObservableTaskList} and is sorted by its columns, so the table is set once
+     * and the changes made through <code>observableList</code> redraw only the changed rows.
      */
     protected void loadMainTable() {
-        ObservableList<Task> taskList = FXCollections.observableArrayList();
-        for (Task temp : list) {
-            taskList.add(temp);
-        }
-        mainTable.setItems(taskList);
+        SortedList<Task> sortedList = new SortedList<>(observableList);
+        sortedList.comparatorProperty().bind(mainTable.comparatorProperty());
+        mainTable.setItems(sortedList);
     }
 
     /**
-     * The method that loads tasks to the table in Calendar tab.
+     * The method that loads tasks to the table in Calendar tab from the start of the period.
+     * The calendar is taken from {@link CalendarCache}, so it is not built again if the list was not changed.
+     * If the period has {@link #MAX_CALENDAR_OCCURRENCES} executions or more, only the first page
+     * of the calendar is shown, so a long period of frequent tasks does not fill the memory,
+     * and the next pages are shown by {@link #loadNextCalendarPage()}.
      */
     protected void loadCalendarTable() {
-        SortedMap<LocalDateTime, Set<Task>> map = Tasks.calendar(list, cachedFromField, cachedToField);
+        if (Tasks.countOccurrences(list, cachedFromField, cachedToField, MAX_CALENDAR_OCCURRENCES)
+                < MAX_CALENDAR_OCCURRENCES) {
+            showCalendarPage(calendarCache.calendar(cachedFromField, cachedToField), null);
+            logger.debug(calendarCache);
+        } else {
+            loadCalendarPage(cachedFromField);
+        }
+    }
+
+    /**
+     * The method that loads the page of the calendar after the last date of the shown page.
+     *
+     * @throws IllegalStateException if the shown page is the last one
+     */
+    protected void loadNextCalendarPage() throws IllegalStateException {
+        if (nextCalendarPage == null) {
+            throw new IllegalStateException("The calendar has no next page.");
+        }
+        loadCalendarPage(nextCalendarPage);
+    }
+
+    /**
+     * The method that loads the page of the calendar after the date to the table in Calendar tab.
+     *
+     * @param after the start of the page
+     */
+    private void loadCalendarPage(LocalDateTime after) {
+        CalendarPage page = Tasks.calendarPage(list, after, cachedToField, Integer.MAX_VALUE, MAX_CALENDAR_OCCURRENCES);
+        showCalendarPage(page.getCalendar(), page.getNext());
+        logger.info("Calendar page was loaded: " + page);
+    }
+
+    /**
+     * The method that shows the dates in the table in Calendar tab and tells whether the calendar was cut.
+     *
+     * @param map the dates of the page
+     * @param next the last date of the page if there are more dates in the period, otherwise <code>null</code>
+     */
+    private void showCalendarPage(SortedMap<LocalDateTime, Set<Task>> map, LocalDateTime next) {
+        nextCalendarPage = next;
+        nextPageButton.setDisable(next == null);
+        calendarPageLabel.setText(next == null ? "" : "Calendar was cut after " + next.format(DATE_TIME_FORMATTER) + ".");
         List<CalendarTableHelper> calendarTableHelperList = new ArrayList<>(map.size());
         for (Map.Entry<LocalDateTime, Set<Task>> entry : map.entrySet()) {
             calendarTableHelperList.add(new View.CalendarTableHelper(entry.getKey(), entry.getValue()));
@@ -0,0 +1,107 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArrayTaskListTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    private static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            tasks.add(new Task("task " + i, BASE.plusMinutes(i)));
+        }
+        return tasks;
+    }
+
+    private static void removeAll(ArrayTaskList list, List<Task> tasks) {
+        for (Task task : tasks) {
+            assertTrue(list.remove(task));
+        }
+    }
+
+    @Test
+    public void capacityOfConstructorIsKeptWhenTasksAreRemoved() {
+        ArrayTaskList list = new ArrayTaskList(1000);
+        List<Task> tasks = tasks(900);
+        list.addAll(tasks);
+        removeAll(list, tasks);
+        assertEquals(0, list.size());
+        assertEquals(1000, list.capacity());
+    }
+
+    @Test
+    public void capacityOfEnsureCapacityIsKeptWhenTasksAreRemoved() {
+        ArrayTaskList list = new ArrayTaskList();
+        list.ensureCapacity(500);
+        List<Task> tasks = tasks(2000);
+        list.addAll(tasks);
+        assertTrue(list.capacity() >= 2000);
+        list.removeIf(task -> true);
+        assertEquals(500, list.capacity());
+        list.addAll(tasks(400));
+        assertEquals(500, list.capacity());
+    }
+
+    @Test
+    public void capacityOfBulkOperationsIsNotKept() {
+        ArrayTaskList list = new ArrayTaskList();
+        List<Task> tasks = tasks(2000);
+        list.addAll(tasks);
+        removeAll(list, tasks.subList(0, 1900));
+        assertEquals(100, list.size());
+        assertTrue(list.capacity() < 2000 / 4);
+    }
+
+    @Test
+    public void trimToSizeDropsRequestedCapacity() {
+        ArrayTaskList list = new ArrayTaskList(1000);
+        List<Task> tasks = tasks(900);
+        list.addAll(tasks);
+        list.trimToSize();
+        assertEquals(900, list.capacity());
+        removeAll(list, tasks.subList(0, 800));
+        assertTrue(list.capacity() < 900);
+    }
+
+    @Test
+    public void corruptedCountOfStreamDoesNotPresizeTheList() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(-1);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        ArrayTaskList list = new ArrayTaskList();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            list.readExternal(in);
+            fail("The truncated stream was read.");
+        } catch (EOFException ignored) {
+        }
+        assertEquals(0, list.size());
+        assertTrue(list.capacity() <= AbstractTaskList.MAX_STREAM_PRESIZE);
+    }
+
+    @Test
+    public void capacityOfReadFileIsNotKept() {
+        ArrayTaskList written = new ArrayTaskList();
+        written.addAll(tasks(900));
+        StringWriter out = new StringWriter();
+        TaskIO.write(written, out, false);
+        ArrayTaskList list = new ArrayTaskList();
+        TaskIO.read(list, new StringReader(out.toString()));
+        assertEquals(900, list.size());
+        assertEquals(900, list.capacity());
+        List<Task> read = new ArrayList<>();
+        for (Task task : list) {
+            read.add(task);
+        }
+        removeAll(list, read.subList(0, 800));
+        assertTrue(list.capacity() < 900);
+    }
+}
@@ -0,0 +1,183 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of the bulk operations of every list type. Every bulk call must publish one change
+ * with all its tasks, and a call that fails on a null pointer must not change the list or publish anything.
+ * The lists have clones of tasks, which have the same identifiers, to check the index of identifiers
+ * after the bulk removals.
+ */
+public class BulkOperationsTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    private static Task task(int number) {
+        Task task = new Task("task " + number, BASE.plusMinutes(number));
+        task.setActive(true);
+        return task;
+    }
+
+    private static List<Task> tasks(Iterable<Task> list) {
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : list) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void assertSameTasks(String message, List<Task> expected, AbstractTaskList list) {
+        List<Task> actual = tasks(list);
+        assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertSame(message, expected.get(i), actual.get(i));
+        }
+    }
+
+    private static List<TaskListChange> listen(AbstractTaskList list) {
+        List<TaskListChange> changes = new ArrayList<>();
+        Consumer<TaskListChange> listener = changes::add;
+        list.addListener(listener);
+        return changes;
+    }
+
+    private static AbstractTaskList listWithClones(ListTypes.types type, List<Task> expected)
+            throws CloneNotSupportedException {
+        AbstractTaskList list = TaskListFactory.createTaskList(type);
+        for (int i = 0; i < 20; ++i) {
+            Task task = task(i);
+            list.add(task);
+            expected.add(task);
+            if (i % 5 == 0) {
+                Task clone = task.clone();
+                list.add(clone);
+                expected.add(clone);
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void addAllPublishesOneChange() {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            AbstractTaskList list = TaskListFactory.createTaskList(type);
+            list.add(task(-1));
+            List<TaskListChange> changes = listen(list);
+            long version = list.getVersion();
+            List<Task> added = new ArrayList<>();
+            for (int i = 0; i < 100; ++i) {
+                added.add(task(i));
+            }
+            assertTrue(list.addAll(added));
+            assertEquals(type.name(), 1, changes.size());
+            assertEquals(type.name(), added, changes.get(0).getAdded());
+            assertTrue(changes.get(0).getRemoved().isEmpty());
+            assertEquals(type.name(), version + 1, list.getVersion());
+            assertEquals(list.getVersion(), changes.get(0).getVersion());
+            assertEquals(type.name(), 101, list.size());
+        }
+    }
+
+    @Test
+    public void removeIfAndRetainAllPublishOneChangeAndKeepIndex() throws CloneNotSupportedException {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            List<Task> expected = new ArrayList<>();
+            AbstractTaskList list = listWithClones(type, expected);
+            List<TaskListChange> changes = listen(list);
+            Task first = expected.get(0);
+            Task clone = expected.get(1);
+            assertEquals(first.getId(), clone.getId());
+            List<Task> removed = new ArrayList<>();
+            for (Task task : expected) {
+                if (task == first || task.getId() % 3 == 0 && task != clone) {
+                    removed.add(task);
+                }
+            }
+            assertTrue(list.removeIf(task -> removed.stream().anyMatch(other -> other == task)));
+            expected.removeIf(task -> removed.stream().anyMatch(other -> other == task));
+            assertEquals(type.name(), 1, changes.size());
+            assertEquals(type.name(), removed.size(), changes.get(0).getRemoved().size());
+            assertSameTasks(type.name(), expected, list);
+            assertSame(type.name(), clone, list.getById(clone.getId()));
+            for (Task task : expected) {
+                assertEquals(type.name(), task.getId(), list.getById(task.getId()).getId());
+            }
+
+            assertFalse(list.removeIf(task -> false));
+            assertEquals(type.name(), 1, changes.size());
+
+            Set<Long> keptIds = new HashSet<>();
+            for (Task task : expected.subList(0, expected.size() / 2)) {
+                keptIds.add(task.getId());
+            }
+            List<Task> kept = new ArrayList<>();
+            List<Task> dropped = new ArrayList<>();
+            for (Task task : expected) {
+                (keptIds.contains(task.getId()) ? kept : dropped).add(task);
+            }
+            assertTrue(list.retainAll(new ArrayList<>(expected.subList(0, expected.size() / 2))));
+            assertEquals(type.name(), 2, changes.size());
+            assertEquals(type.name(), dropped.size(), changes.get(1).getRemoved().size());
+            assertSameTasks(type.name(), kept, list);
+            for (Task task : dropped) {
+                assertNull(type.name(), list.getById(task.getId()));
+            }
+            assertTrue(list.remove(clone));
+            assertNull(type.name(), list.getById(clone.getId()));
+        }
+    }
+
+    @Test
+    public void replaceAllPublishesOneChange() throws CloneNotSupportedException {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            List<Task> expected = new ArrayList<>();
+            AbstractTaskList list = listWithClones(type, expected);
+            List<TaskListChange> changes = listen(list);
+            List<Task> replaced = new ArrayList<>();
+            list.replaceAll(task -> {
+                Task replacement = (task.getId() % 2 == 0 ? task(100 + replaced.size()) : task);
+                replaced.add(replacement);
+                return replacement;
+            });
+            long kept = replaced.stream().filter(task -> expected.stream().anyMatch(other -> other == task)).count();
+            assertEquals(type.name(), 1, changes.size());
+            assertEquals(type.name(), kept, changes.get(0).getModified().size());
+            assertEquals(type.name(), replaced.size() - kept, changes.get(0).getAdded().size());
+            assertEquals(type.name(), replaced.size() - kept, changes.get(0).getRemoved().size());
+            assertSameTasks(type.name(), replaced, list);
+            for (Task task : replaced) {
+                assertEquals(type.name(), task.getId(), list.getById(task.getId()).getId());
+            }
+        }
+    }
+
+    @Test
+    public void failedBulkOperationsDoNotChangeTheList() throws CloneNotSupportedException {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            List<Task> expected = new ArrayList<>();
+            AbstractTaskList list = listWithClones(type, expected);
+            List<TaskListChange> changes = listen(list);
+            long version = list.getVersion();
+            Task last = expected.get(expected.size() - 1);
+            try {
+                list.replaceAll(task -> (task == last ? null : task(1000)));
+                fail(type.name() + ": the null replacement was accepted.");
+            } catch (NullPointerException ignored) {
+            }
+            try {
+                list.addAll(Arrays.asList(task(2000), null));
+                fail(type.name() + ": the null task was accepted.");
+            } catch (NullPointerException ignored) {
+            }
+            assertTrue(type.name(), changes.isEmpty());
+            assertEquals(type.name(), version, list.getVersion());
+            assertSameTasks(type.name(), expected, list);
+            assertSame(type.name(), expected.get(0), list.getById(expected.get(0).getId()));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package bubzki.organizer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The benchmark of the calendar built from slices of the period by the common fork-join pool
+ * against the single merge of the whole period, for periods with more executions than
+ * {@link TaskCalendar#PARALLEL_THRESHOLD}. The sliced build needs several threads in the common fork-join pool,
+ * which can be set by <code>-Djava.util.concurrent.ForkJoinPool.common.parallelism</code>.
+ * It is not run by the tests, start it with the test classpath:
+ * <code>java -cp target/classes:target/test-classes bubzki.organizer.model.CalendarBenchmark</code>.
+ */
+public class CalendarBenchmark {
+    private final static int TASKS = 5_000;
+    private final static int SLICES_PER_THREAD = 4;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        List<Task> list = new ArrayList<>();
+        for (int i = 0; i < TASKS; ++i) {
+            list.add(TaskCalendarTest.randomTask(random, i));
+        }
+        Task[] tasks = list.toArray(new Task[0]);
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        System.out.printf("%d tasks, %d cores, common pool parallelism %d%n",
+                TASKS, Runtime.getRuntime().availableProcessors(), parallelism);
+        long from = Task.toEpochSecond(TaskCalendarTest.BASE);
+        for (int days : new int[]{2, 5, 10}) {
+            long to = from + 3600L * 24 * days;
+            long executions = TaskCalendar.countExecutions(tasks, from, to, Long.MAX_VALUE);
+            int slices = Math.max(2, parallelism * SLICES_PER_THREAD);
+            long single = NextTimeAfterBenchmark.measure(() -> TaskCalendar.build(tasks, from, to, 1).size());
+            long sliced = NextTimeAfterBenchmark.measure(() -> TaskCalendar.build(tasks, from, to, slices).size());
+            System.out.printf("%3d days, %,10d executions: single merge %,8.2f ms, %d slices %,8.2f ms%n",
+                    days, executions, single / 1e6, slices, sliced / 1e6);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of the cache of calendars. The cached calendars are changed by the changes of the list,
+ * so after every change they must have the same dates as a calendar built again,
+ * with the tasks of every date in the same order.
+ */
+public class CalendarCacheTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    private static Task randomTask(Random random, int number) {
+        LocalDateTime start = BASE.plusHours(random.nextInt(48));
+        Task task;
+        if (random.nextBoolean()) {
+            task = new Task("single " + number, start);
+        } else {
+            task = new Task("repeated " + number, start, start.plusHours(1 + random.nextInt(48)),
+                    3600 * (1 + random.nextInt(6)));
+        }
+        task.setActive(true);
+        return task;
+    }
+
+    private static Map<LocalDateTime, List<Task>> ordered(SortedMap<LocalDateTime, Set<Task>> calendar) {
+        Map<LocalDateTime, List<Task>> ordered = new LinkedHashMap<>();
+        for (Map.Entry<LocalDateTime, Set<Task>> entry : calendar.entrySet()) {
+            ordered.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return ordered;
+    }
+
+    @Test
+    public void changedCalendarsKeepTasksInListOrder() {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            Random random = new Random(24);
+            AbstractTaskList list = TaskListFactory.createTaskList(type);
+            for (int i = 0; i < 200; ++i) {
+                list.add(randomTask(random, i));
+            }
+            CalendarCache cache = new CalendarCache(list);
+            LocalDateTime start = BASE.plusHours(6);
+            LocalDateTime end = BASE.plusHours(60);
+            assertFalse(cache.calendar(start, end).isEmpty());
+            for (int i = 0; i < 300; ++i) {
+                int operation = random.nextInt(3);
+                if (operation == 0) {
+                    list.add(randomTask(random, 200 + i));
+                } else if (operation == 1) {
+                    list.remove(list.getTask(random.nextInt(list.size())));
+                } else {
+                    LocalDateTime time = BASE.plusHours(random.nextInt(48));
+                    list.update(list.getTask(random.nextInt(list.size())), task -> task.setTime(time));
+                }
+                assertEquals(type.name(), ordered(Tasks.calendar(list, start, end)),
+                        ordered(cache.calendar(start, end)));
+            }
+            assertEquals(type.name(), 300, cache.getHits());
+            assertEquals(type.name(), 1, cache.getMisses());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of the calendar given date by date and page by page. The dates must be the same
+ * as of {@link Tasks#calendar(Iterable, LocalDateTime, LocalDateTime)}, with the tasks of every date
+ * in the same order, and every page must end with a whole date.
+ */
+public class CalendarPageTest {
+    private final static LocalDateTime BASE = TaskCalendarTest.BASE;
+
+    private static List<Task> tasks(long seed, int count) {
+        Random random = new Random(seed);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            tasks.add(TaskCalendarTest.randomTask(random, i));
+        }
+        return tasks;
+    }
+
+    private static Map<LocalDateTime, List<Task>> ordered(Iterator<Map.Entry<LocalDateTime, Set<Task>>> dates) {
+        Map<LocalDateTime, List<Task>> ordered = new LinkedHashMap<>();
+        while (dates.hasNext()) {
+            Map.Entry<LocalDateTime, Set<Task>> entry = dates.next();
+            assertNull("The date was given twice.", ordered.put(entry.getKey(), new ArrayList<>(entry.getValue())));
+        }
+        return ordered;
+    }
+
+    private static Map<LocalDateTime, List<Task>> ordered(SortedMap<LocalDateTime, Set<Task>> calendar) {
+        return ordered(calendar.entrySet().iterator());
+    }
+
+    @Test
+    public void iteratorGivesDatesOfCalendar() {
+        List<Task> tasks = tasks(25, 200);
+        LocalDateTime start = BASE.plusDays(1);
+        LocalDateTime end = BASE.plusDays(4);
+        Map<LocalDateTime, List<Task>> expected = ordered(Tasks.calendar(tasks, start, end));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, ordered(Tasks.calendarIterator(tasks, start, end)));
+        assertFalse(Tasks.calendarIterator(tasks, end, end).hasNext());
+    }
+
+    @Test
+    public void pagesEndWithWholeDatesWithinBudget() {
+        List<Task> tasks = tasks(52, 200);
+        LocalDateTime start = BASE.plusDays(1);
+        LocalDateTime end = BASE.plusDays(4);
+        Map<LocalDateTime, List<Task>> expected = ordered(Tasks.calendar(tasks, start, end));
+        int maxOccurrences = 0;
+        for (List<Task> date : expected.values()) {
+            maxOccurrences = Math.max(maxOccurrences, date.size());
+        }
+        assertTrue("The calendar needs a date with several tasks.", maxOccurrences > 1);
+        for (long budget : new long[]{1, 2, maxOccurrences - 1, maxOccurrences, 50}) {
+            LocalDateTime after = start;
+            boolean hasNext = true;
+            while (hasNext) {
+                CalendarPage page = Tasks.calendarPage(tasks, after, end, Integer.MAX_VALUE, budget);
+                Map<LocalDateTime, List<Task>> dates = ordered(page.getCalendar());
+                assertFalse("budget " + budget, dates.isEmpty());
+                long occurrences = 0;
+                long lastDate = 0;
+                for (Map.Entry<LocalDateTime, List<Task>> date : dates.entrySet()) {
+                    assertEquals("budget " + budget, expected.get(date.getKey()), date.getValue());
+                    occurrences += date.getValue().size();
+                    lastDate = date.getValue().size();
+                }
+                assertEquals("budget " + budget, occurrences, page.getOccurrences());
+                assertTrue("budget " + budget, dates.size() == 1 || occurrences - lastDate < budget);
+                assertTrue("budget " + budget, !page.hasNext() || occurrences >= budget);
+                hasNext = page.hasNext();
+                if (hasNext) {
+                    LocalDateTime last = page.getCalendar().lastKey();
+                    assertEquals(last, page.getNext());
+                    after = page.getNext();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void pagesLimitDates() {
+        List<Task> tasks = tasks(7, 50);
+        LocalDateTime start = BASE;
+        LocalDateTime end = BASE.plusDays(10);
+        Map<LocalDateTime, List<Task>> expected = ordered(Tasks.calendar(tasks, start, end));
+        CalendarPage page = Tasks.calendarPage(tasks, start, end, 3, Long.MAX_VALUE);
+        assertEquals(3, page.getCalendar().size());
+        assertTrue(page.hasNext());
+        List<LocalDateTime> dates = new ArrayList<>(expected.keySet());
+        assertEquals(dates.subList(0, 3), new ArrayList<>(page.getCalendar().keySet()));
+        assertEquals(dates.get(2), page.getNext());
+        try {
+            Tasks.calendarPage(tasks, start, end, 0, 1);
+            fail("The empty page was accepted.");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void followingPagesGivesWholeCalendar() {
+        List<Task> tasks = tasks(17, 300);
+        LocalDateTime start = BASE;
+        LocalDateTime end = BASE.plusDays(10).plusMinutes(7);
+        Map<LocalDateTime, List<Task>> expected = ordered(Tasks.calendar(tasks, start, end));
+        for (long budget : new long[]{1, 10, 100, 1000, Long.MAX_VALUE}) {
+            Map<LocalDateTime, List<Task>> paged = new LinkedHashMap<>();
+            int pages = 0;
+            CalendarPage page = null;
+            do {
+                page = Tasks.calendarPage(tasks, page == null ? start : page.getNext(), end, Integer.MAX_VALUE, budget);
+                for (Map.Entry<LocalDateTime, List<Task>> date : ordered(page.getCalendar()).entrySet()) {
+                    assertNull("budget " + budget, paged.put(date.getKey(), date.getValue()));
+                }
+                pages++;
+            } while (page.hasNext());
+            assertEquals("budget " + budget, expected, paged);
+            assertEquals("budget " + budget, budget == Long.MAX_VALUE, pages == 1);
+        }
+        assertTrue(Tasks.calendarPage(tasks, end, end, 1, 1).getCalendar().isEmpty());
+    }
+}
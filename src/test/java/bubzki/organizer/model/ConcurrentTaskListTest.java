@@ -0,0 +1,168 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentTaskListTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private final static int ADDERS = 4;
+    private final static int SCANNERS = 3;
+    private final static int TASKS_PER_ADDER = 5000;
+
+    private static Task task(int adder, int number) {
+        Task task = new Task(adder + "-" + number, BASE.plusSeconds(number));
+        task.setActive(true);
+        return task;
+    }
+
+    private static int adderOf(Task task) {
+        return Integer.parseInt(task.getTitle().substring(0, task.getTitle().indexOf('-')));
+    }
+
+    private static int numberOf(Task task) {
+        return Integer.parseInt(task.getTitle().substring(task.getTitle().indexOf('-') + 1));
+    }
+
+    /**
+     * The adders add tasks and remove every third of them, while the scanners iterate, stream
+     * and search the list. Every snapshot must have no null pointers and no duplicates,
+     * and the tasks of every adder must be in the order in which they were added.
+     */
+    @Test(timeout = 60_000)
+    public void addersAndScannersSeeConsistentSnapshots() throws Exception {
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        ExecutorService executor = Executors.newFixedThreadPool(ADDERS + SCANNERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong scans = new AtomicLong();
+        try {
+            List<Future<List<Task>>> adders = new ArrayList<>();
+            for (int adder = 0; adder < ADDERS; ++adder) {
+                int number = adder;
+                adders.add(executor.submit(() -> {
+                    start.await();
+                    List<Task> kept = new ArrayList<>();
+                    for (int i = 0; i < TASKS_PER_ADDER; ++i) {
+                        Task task = task(number, i);
+                        list.add(task);
+                        if (i % 3 == 0) {
+                            assertTrue(list.remove(task));
+                        } else {
+                            kept.add(task);
+                        }
+                    }
+                    return kept;
+                }));
+            }
+            List<Future<?>> scanners = new ArrayList<>();
+            for (int scanner = 0; scanner < SCANNERS; ++scanner) {
+                scanners.add(executor.submit(() -> {
+                    start.await();
+                    while (!done.get()) {
+                        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                        int[] last = new int[ADDERS];
+                        Arrays.fill(last, -1);
+                        for (Task task : list) {
+                            assertNotNull(task);
+                            assertTrue("The task is seen twice: " + task, seen.add(task));
+                            int adder = adderOf(task);
+                            int number = numberOf(task);
+                            assertTrue("The tasks of an adder are out of order.", number > last[adder]);
+                            last[adder] = number;
+                        }
+                        assertTrue(list.getStream().allMatch(Objects::nonNull));
+                        for (Task task : list.incoming(BASE, BASE.plusSeconds(100))) {
+                            assertTrue(numberOf(task) <= 100);
+                        }
+                        int size = list.size();
+                        if (size > 0) {
+                            assertNotNull(list.getTask(size - 1));
+                        }
+                        scans.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            Set<Task> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<List<Task>> adder : adders) {
+                expected.addAll(adder.get());
+            }
+            done.set(true);
+            for (Future<?> scanner : scanners) {
+                scanner.get();
+            }
+            assertEquals(expected.size(), list.size());
+            for (Task task : list) {
+                assertTrue(expected.contains(task));
+            }
+            assertTrue(scans.get() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The changes are published under the lock of writers, so the listeners must see
+     * the versions of the list one by one, even if the list is changed by several threads.
+     */
+    @Test(timeout = 60_000)
+    public void listenersSeeChangesInOrder() throws Exception {
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        List<Long> versions = Collections.synchronizedList(new ArrayList<>());
+        list.addListener(change -> versions.add(change.getVersion()));
+        ExecutorService executor = Executors.newFixedThreadPool(ADDERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int adder = 0; adder < ADDERS; ++adder) {
+                int number = adder;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; ++i) {
+                        Task task = task(number, i);
+                        list.add(task);
+                        list.update(task, changed -> changed.setTitle(number + "-" + (TASKS_PER_ADDER + 1)));
+                        if (i % 2 == 0) {
+                            list.remove(task);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(list.getVersion(), versions.size());
+        for (int i = 0; i < versions.size(); ++i) {
+            assertEquals(i + 1, (long) versions.get(i));
+        }
+        assertEquals(ADDERS * 500, list.size());
+    }
+
+    @Test
+    public void iteratorIsNotAffectedByLaterChanges() {
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        for (int i = 0; i < 10; ++i) {
+            list.add(task(0, i));
+        }
+        Iterator<Task> iterator = list.iterator();
+        list.removeIf(task -> numberOf(task) % 2 == 0);
+        list.add(task(0, 10));
+        int count = 0;
+        while (iterator.hasNext()) {
+            assertEquals(count, numberOf(iterator.next()));
+            count++;
+        }
+        assertEquals(10, count);
+        assertEquals(6, list.size());
+    }
+}
@@ -0,0 +1,63 @@
+package bubzki.organizer.model;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * The benchmark of the search of incoming tasks of every list type above {@link AbstractTaskList#PARALLEL_THRESHOLD},
+ * where it runs in parallel through the spliterator of the list, against the sequential loop over the iterator
+ * which collects the same list, and of the spliterators themselves: a parallel and a sequential pass
+ * over the stream of the list. The parallel search needs several threads in the common fork-join pool,
+ * which can be set by <code>-Djava.util.concurrent.ForkJoinPool.common.parallelism</code>.
+ * It is not run by the tests, start it with the test classpath:
+ * <code>java -cp target/classes:target/test-classes bubzki.organizer.model.IncomingBenchmark</code>.
+ */
+public class IncomingBenchmark {
+    private final static int SIZE = 200_000;
+    private final static int SEARCHES = 10;
+
+    public static void main(String[] args) {
+        LocalDateTime base = LocalDateTime.of(2021, 6, 1, 0, 0);
+        System.out.printf("%d tasks, %d cores%n", SIZE, Runtime.getRuntime().availableProcessors());
+        for (ListTypes.types type : ListTypes.types.values()) {
+            Random random = new Random(1);
+            AbstractTaskList list = TaskListFactory.createTaskList(type);
+            for (int i = 0; i < SIZE; ++i) {
+                list.add(IncomingTest.randomTask(random, i));
+            }
+            LocalDateTime[] from = new LocalDateTime[SEARCHES];
+            for (int i = 0; i < SEARCHES; ++i) {
+                from[i] = base.plusMinutes(random.nextInt(100_000));
+            }
+            long incoming = NextTimeAfterBenchmark.measure(() -> {
+                long sink = 0;
+                for (LocalDateTime time : from) {
+                    sink += list.incoming(time, time.plusDays(1)).size();
+                }
+                return sink;
+            });
+            long loop = NextTimeAfterBenchmark.measure(() -> {
+                long sink = 0;
+                for (LocalDateTime time : from) {
+                    long fromSecond = Task.toEpochSecond(time);
+                    long toSecond = Task.toEpochSecond(time.plusDays(1));
+                    AbstractTaskList found = list.getTaskList();
+                    for (Task task : list) {
+                        if (AbstractTaskList.isIncoming(task, fromSecond, toSecond)) {
+                            found.add(task);
+                        }
+                    }
+                    sink += found.size();
+                }
+                return sink;
+            });
+            long parallelStream = NextTimeAfterBenchmark.measure(
+                    () -> list.getStream().parallel().mapToLong(Task::getEndEpochSecond).sum());
+            long sequentialStream = NextTimeAfterBenchmark.measure(
+                    () -> list.getStream().mapToLong(Task::getEndEpochSecond).sum());
+            System.out.printf("%-10s incoming %,8.2f ms, sequential loop %,8.2f ms;"
+                            + " stream: parallel %,8.2f ms, sequential %,8.2f ms%n", type,
+                    incoming / 1e6 / SEARCHES, loop / 1e6 / SEARCHES, parallelStream / 1e6, sequentialStream / 1e6);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of the search of incoming tasks of every list type. The lists of
+ * {@link AbstractTaskList#PARALLEL_THRESHOLD} tasks or more are searched in parallel
+ * through their spliterators, so the result must be the same as the sequential search, in the same order.
+ */
+public class IncomingTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    static Task randomTask(Random random, int number) {
+        Task task;
+        if (random.nextBoolean()) {
+            task = new Task("single " + number, BASE.plusMinutes(random.nextInt(100_000)));
+        } else {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            task = new Task("repeated " + number, start, start.plusMinutes(1 + random.nextInt(20_000)),
+                    60 * (1 + random.nextInt(600)));
+        }
+        task.setActive(random.nextInt(5) != 0);
+        return task;
+    }
+
+    private static List<Task> sequentialIncoming(AbstractTaskList list, LocalDateTime from, LocalDateTime to) {
+        long fromSecond = Task.toEpochSecond(from);
+        long toSecond = Task.toEpochSecond(to);
+        List<Task> found = new ArrayList<>();
+        for (Task task : list) {
+            if (AbstractTaskList.isIncoming(task, fromSecond, toSecond)) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    private static List<Task> tasks(Iterable<Task> list) {
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : list) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    @Test
+    public void parallelIncomingMatchesSequentialForEveryType() {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            Random random = new Random(14);
+            AbstractTaskList list = TaskListFactory.createTaskList(type);
+            for (int i = 0; i < AbstractTaskList.PARALLEL_THRESHOLD + 2_345; ++i) {
+                list.add(randomTask(random, i));
+            }
+            for (int i = 0; i < 1_000; ++i) {
+                list.remove(list.getTask(random.nextInt(list.size())));
+            }
+            assertTrue(list.size() >= AbstractTaskList.PARALLEL_THRESHOLD);
+            for (int i = 0; i < 10; ++i) {
+                LocalDateTime from = BASE.plusMinutes(random.nextInt(120_000) - 10_000);
+                LocalDateTime to = from.plusMinutes(random.nextInt(5_000));
+                assertEquals(type.name(), sequentialIncoming(list, from, to), tasks(list.incoming(from, to)));
+            }
+        }
+    }
+
+    @Test
+    public void incomingBelowAndAboveThresholdAgree() {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            Random random = new Random(41);
+            AbstractTaskList large = TaskListFactory.createTaskList(type);
+            AbstractTaskList small = TaskListFactory.createTaskList(type);
+            for (int i = 0; i < AbstractTaskList.PARALLEL_THRESHOLD; ++i) {
+                Task task = randomTask(random, i);
+                large.add(task);
+                if (i % 2 == 0) {
+                    small.add(task);
+                }
+            }
+            LocalDateTime from = BASE.plusMinutes(30_000);
+            LocalDateTime to = from.plusMinutes(3_000);
+            List<Task> expected = tasks(large.incoming(from, to)).stream()
+                    .filter(task -> small.getById(task.getId()) != null).collect(Collectors.toList());
+            assertEquals(type.name(), expected, tasks(small.incoming(from, to)));
+        }
+    }
+
+    @Test
+    public void parallelStreamKeepsOrderForEveryType() {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            Random random = new Random(7);
+            AbstractTaskList list = TaskListFactory.createTaskList(type);
+            for (int i = 0; i < 20_000; ++i) {
+                list.add(randomTask(random, i));
+            }
+            list.removeIf(task -> task.getId() % 7 == 0);
+            assertEquals(type.name(), tasks(list), list.getStream().parallel().collect(Collectors.toList()));
+            assertEquals(type.name(), list.size(), list.getStream().parallel().count());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class IndexedTaskListTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    private static Task randomTask(Random random, int number) {
+        Task task;
+        if (random.nextBoolean()) {
+            task = new Task("single " + number, BASE.plusMinutes(random.nextInt(10_000)));
+        } else {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(10_000));
+            task = new Task("repeated " + number, start, start.plusMinutes(1 + random.nextInt(2_000)),
+                    60 * (1 + random.nextInt(120)));
+        }
+        task.setActive(random.nextInt(5) != 0);
+        return task;
+    }
+
+    private static void randomSchedule(Random random, Task task) {
+        if (random.nextBoolean()) {
+            task.setTime(BASE.plusMinutes(random.nextInt(10_000)));
+        } else {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(10_000));
+            task.setTime(start, start.plusMinutes(1 + random.nextInt(2_000)), 60 * (1 + random.nextInt(120)));
+        }
+    }
+
+    private static List<Task> expectedIncoming(Iterable<Task> tasks, LocalDateTime from, LocalDateTime to) {
+        List<Task> expected = new ArrayList<>();
+        for (Task task : tasks) {
+            LocalDateTime next = task.nextTimeAfter(from);
+            if (next != null && !next.isAfter(to)) {
+                expected.add(task);
+            }
+        }
+        return expected;
+    }
+
+    private static List<Task> actualIncoming(AbstractTaskList list, LocalDateTime from, LocalDateTime to) {
+        List<Task> actual = new ArrayList<>();
+        for (Task task : list.incoming(from, to)) {
+            actual.add(task);
+        }
+        return actual;
+    }
+
+    private static void assertIncoming(AbstractTaskList list, Random random) {
+        for (int i = 0; i < 5; ++i) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(12_000) - 1_000);
+            LocalDateTime to = from.plusMinutes(random.nextInt(3_000));
+            assertEquals(expectedIncoming(list, from, to), actualIncoming(list, from, to));
+        }
+    }
+
+    @Test
+    public void incomingFollowsTasksChangedDirectly() {
+        Random random = new Random(3);
+        IndexedTaskList list = new IndexedTaskList();
+        for (int i = 0; i < 300; ++i) {
+            list.add(randomTask(random, i));
+        }
+        for (int round = 0; round < 200; ++round) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    randomSchedule(random, list.getTask(random.nextInt(list.size())));
+                    break;
+                case 1:
+                    list.update(list.getTask(random.nextInt(list.size())), task -> randomSchedule(random, task));
+                    break;
+                case 2:
+                    list.remove(list.getTask(random.nextInt(list.size())));
+                    list.add(randomTask(random, 1000 + round));
+                    break;
+                case 3:
+                    list.getTask(random.nextInt(list.size())).setActive(random.nextBoolean());
+                    break;
+                case 4:
+                    int modulo = 20 + random.nextInt(20);
+                    list.removeIf(task -> task.getId() % modulo == 0);
+                    while (list.size() < 300) {
+                        list.add(randomTask(random, 2000 + list.size()));
+                    }
+                    break;
+                default:
+                    list.replaceAll(task -> random.nextInt(10) == 0 ? randomTask(random, 3000) : task);
+                    break;
+            }
+            assertIncoming(list, random);
+        }
+    }
+
+    @Test
+    public void removedTaskChangedLaterIsNotIndexed() {
+        Task task = new Task("removed", BASE.plusHours(1));
+        task.setActive(true);
+        IndexedTaskList list = new IndexedTaskList();
+        list.add(task);
+        list.add(new Task("kept", BASE.plusHours(2)));
+        task.setTime(BASE.plusHours(3));
+        list.remove(task);
+        task.setTime(BASE.plusHours(4));
+        assertEquals(0, list.incoming(BASE, BASE.plusHours(5)).size());
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void taskInSeveralListsIsReindexedInEach() {
+        Task task = new Task("shared", BASE.plusHours(1));
+        task.setActive(true);
+        IndexedTaskList first = new IndexedTaskList();
+        IndexedTaskList second = new IndexedTaskList();
+        first.add(task);
+        second.add(task);
+        task.setTime(BASE.plusHours(10));
+        assertEquals(0, first.incoming(BASE, BASE.plusHours(5)).size());
+        assertEquals(1, second.incoming(BASE.plusHours(9), BASE.plusHours(11)).size());
+        assertEquals(1, first.incoming(BASE.plusHours(9), BASE.plusHours(11)).size());
+    }
+
+    @Test
+    public void cloneIsIndexedSeparately() throws CloneNotSupportedException {
+        Task task = new Task("original", BASE.plusHours(1));
+        task.setActive(true);
+        IndexedTaskList list = new IndexedTaskList();
+        list.add(task);
+        IndexedTaskList clone = list.clone();
+        task.setTime(BASE.plusHours(10));
+        assertEquals(1, clone.incoming(BASE, BASE.plusHours(2)).size());
+        assertEquals(0, list.incoming(BASE, BASE.plusHours(2)).size());
+        clone.getTask(0).setTime(BASE.plusHours(20));
+        assertEquals(0, clone.incoming(BASE, BASE.plusHours(2)).size());
+        assertEquals(1, list.incoming(BASE.plusHours(9), BASE.plusHours(11)).size());
+    }
+
+    /**
+     * The tasks are changed directly, and then the list is searched by several threads at once.
+     * The nodes of the changed tasks are moved when the tasks change, so the searches only read the tree.
+     */
+    @Test(timeout = 60_000)
+    public void concurrentSearchesAfterDirectChanges() throws Exception {
+        Random random = new Random(8);
+        IndexedTaskList list = new IndexedTaskList();
+        for (int i = 0; i < 5_000; ++i) {
+            list.add(randomTask(random, i));
+        }
+        for (int i = 0; i < 2_000; ++i) {
+            randomSchedule(random, list.getTask(random.nextInt(list.size())));
+        }
+        List<LocalDateTime> starts = new ArrayList<>();
+        List<List<Task>> expected = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(12_000) - 1_000);
+            starts.add(from);
+            expected.add(expectedIncoming(list, from, from.plusMinutes(600)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> searches = new ArrayList<>();
+            for (int thread = 0; thread < 4; ++thread) {
+                searches.add(executor.submit(() -> {
+                    for (int round = 0; round < 20; ++round) {
+                        for (int i = 0; i < starts.size(); ++i) {
+                            LocalDateTime from = starts.get(i);
+                            assertEquals(expected.get(i), actualIncoming(list, from, from.plusMinutes(600)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> search : searches) {
+                search.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package bubzki.organizer.model;
+
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * The benchmark of {@link Task#nextTimeAfter(LocalDateTime)} against the loop that walks the timeline,
+ * {@link TaskTest#nextTimeAfterByLoop(Task, LocalDateTime)}.
+ * It is not run by the tests, start it with the test classpath:
+ * <code>java -cp target/classes:target/test-classes bubzki.organizer.model.NextTimeAfterBenchmark</code>.
+ */
+public class NextTimeAfterBenchmark {
+    private final static int WARMUP_ROUNDS = 5;
+    private final static int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        LocalDateTime start = LocalDateTime.of(2021, 1, 1, 0, 0);
+        int[] repetitions = {10, 1_000, 100_000};
+        for (int count : repetitions) {
+            Task task = new Task("benchmark", start, start.plusMinutes(count), 60);
+            task.setActive(true);
+            LocalDateTime[] points = new LocalDateTime[64];
+            for (int i = 0; i < points.length; ++i) {
+                points[i] = start.plusSeconds((long) count * 60 * i / points.length + 7);
+            }
+            int calls = Math.max(1, 2_000_000 / count);
+            long closedForm = measure(() -> {
+                long sink = 0;
+                for (int i = 0; i < calls; ++i) {
+                    sink += task.nextTimeAfter(points[i % points.length]).getSecond();
+                }
+                return sink;
+            });
+            long loop = measure(() -> {
+                long sink = 0;
+                for (int i = 0; i < calls; ++i) {
+                    sink += TaskTest.nextTimeAfterByLoop(task, points[i % points.length]).getSecond();
+                }
+                return sink;
+            });
+            System.out.printf("%,8d repetitions: closed form %,10.1f ns/call, loop %,14.1f ns/call%n",
+                    count, (double) closedForm / calls, (double) loop / calls);
+        }
+    }
+
+    /**
+     * The method that runs the work several times and returns the best time.
+     *
+     * @param work the measured work, which returns a value so it is not eliminated
+     *
+     * @return the best time in nanoseconds
+     */
+    static long measure(LongSupplier work) {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; ++round) {
+            long started = System.nanoTime();
+            sink += work.getAsLong();
+            long elapsed = System.nanoTime() - started;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return best;
+    }
+}
@@ -0,0 +1,70 @@
+package bubzki.organizer.model;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * The benchmark of removing random tasks from lists of every type, where the tasks are found
+ * through the index of identifiers, against the linear search and shift of the first version
+ * of {@link ArrayTaskList}. The lists are filled before every round, which is not measured.
+ * It is not run by the tests, start it with the test classpath:
+ * <code>java -cp target/classes:target/test-classes bubzki.organizer.model.RemoveBenchmark</code>.
+ */
+public class RemoveBenchmark {
+    private final static int WARMUP_ROUNDS = 5;
+    private final static int ROUNDS = 10;
+    private final static int SIZE = 100_000;
+    private final static int REMOVALS = 1_000;
+
+    public static void main(String[] args) {
+        LocalDateTime start = LocalDateTime.of(2021, 1, 1, 0, 0);
+        Task[] tasks = new Task[SIZE];
+        for (int i = 0; i < SIZE; ++i) {
+            tasks[i] = new Task("benchmark " + i, start.plusMinutes(i));
+        }
+        Random random = new Random(1);
+        Task[] removed = new Task[REMOVALS];
+        for (int i = 0; i < REMOVALS; ++i) {
+            removed[i] = tasks[random.nextInt(SIZE)];
+        }
+        long linear = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; ++round) {
+            Task[] array = tasks.clone();
+            long started = System.nanoTime();
+            int size = SIZE;
+            for (Task task : removed) {
+                for (int i = 0; i < size; ++i) {
+                    if (task.equals(array[i])) {
+                        System.arraycopy(array, i + 1, array, i, size - i - 1);
+                        array[--size] = null;
+                        break;
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - started;
+            if (round >= WARMUP_ROUNDS) {
+                linear = Math.min(linear, elapsed);
+            }
+        }
+        System.out.printf("%-10s %,10.1f ns/removal%n", "LINEAR", (double) linear / REMOVALS);
+        for (ListTypes.types type : ListTypes.types.values()) {
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; ++round) {
+                AbstractTaskList list = TaskListFactory.createTaskList(type);
+                for (Task task : tasks) {
+                    list.add(task);
+                }
+                list.getById(tasks[0].getId());
+                long started = System.nanoTime();
+                for (Task task : removed) {
+                    list.remove(task);
+                }
+                long elapsed = System.nanoTime() - started;
+                if (round >= WARMUP_ROUNDS) {
+                    best = Math.min(best, elapsed);
+                }
+            }
+            System.out.printf("%-10s %,10.1f ns/removal%n", type, (double) best / REMOVALS);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class TaskCalendarTest {
+    final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    static Task randomTask(Random random, int number) {
+        Task task;
+        if (random.nextInt(3) == 0) {
+            task = new Task("single " + number, BASE.plusMinutes(15L * random.nextInt(4 * 24 * 10)));
+        } else {
+            LocalDateTime start = BASE.plusMinutes(15L * random.nextInt(4 * 24 * 10));
+            task = new Task("repeated " + number, start, start.plusMinutes(15L * random.nextInt(4 * 24 * 5)),
+                    60 * 15 * (1 + random.nextInt(16)));
+        }
+        task.setActive(random.nextInt(10) != 0);
+        return task;
+    }
+
+    private static List<Map.Entry<Long, List<Task>>> dates(TaskCalendar calendar) {
+        List<Map.Entry<Long, List<Task>>> dates = new ArrayList<>();
+        for (int i = 0; i < calendar.size(); ++i) {
+            dates.add(new AbstractMap.SimpleImmutableEntry<>(calendar.getEpochSecond(i),
+                    new ArrayList<>(calendar.getTasks(i))));
+        }
+        return dates;
+    }
+
+    private static TaskCalendar calendar() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            Task task = new Task("task " + i, BASE.plusHours(i));
+            task.setActive(true);
+            tasks.add(task);
+        }
+        return TaskCalendar.build(tasks, Task.toEpochSecond(BASE.minusHours(1)), Task.toEpochSecond(BASE.plusDays(1)));
+    }
+
+    private static void assertSameOutcome(SortedMap<LocalDateTime, Set<Task>> expected,
+                                          SortedMap<LocalDateTime, Set<Task>> actual,
+                                          Function<SortedMap<LocalDateTime, Set<Task>>, Object> view) {
+        Object expectedView;
+        try {
+            expectedView = view.apply(expected);
+        } catch (IllegalArgumentException e) {
+            try {
+                view.apply(actual);
+                fail("The key out of range was accepted.");
+            } catch (IllegalArgumentException ignored) {
+            }
+            return;
+        }
+        assertEquals(expectedView, view.apply(actual));
+    }
+
+    @Test
+    public void viewsCheckRangeLikeTreeMap() {
+        TaskCalendar calendar = calendar();
+        TreeMap<LocalDateTime, Set<Task>> tree = new TreeMap<>(calendar);
+        LocalDateTime low = BASE.plusHours(2);
+        LocalDateTime high = BASE.plusHours(6);
+        SortedMap<LocalDateTime, Set<Task>> expected = tree.subMap(low, high);
+        SortedMap<LocalDateTime, Set<Task>> actual = calendar.subMap(low, high);
+        assertEquals(expected, actual);
+        for (int i = 0; i <= 8; ++i) {
+            LocalDateTime key = BASE.plusHours(i);
+            assertSameOutcome(expected, actual, map -> map.tailMap(key));
+            assertSameOutcome(expected, actual, map -> map.headMap(key));
+            assertSameOutcome(expected, actual, map -> map.subMap(key, key));
+            assertSameOutcome(expected, actual, map -> map.subMap(key, high));
+            assertSameOutcome(expected, actual, map -> map.subMap(low, key));
+        }
+        try {
+            actual.tailMap(high);
+            fail("The high key of the view was accepted as a low key.");
+        } catch (IllegalArgumentException ignored) {
+        }
+        assertEquals(expected, actual.headMap(high));
+    }
+
+    /**
+     * The slices of the period are built separately and joined, so the result must be the same
+     * as of one merge of the whole period. The tasks are scheduled every 15 minutes and the period
+     * is a multiple of an hour, so many slice boundaries fall on the times of the tasks.
+     * A task is added twice to check that it is kept once in a date in every slice.
+     */
+    @Test
+    public void slicedBuildMatchesSingleMerge() {
+        Random random = new Random(15);
+        List<Task> list = new ArrayList<>();
+        for (int i = 0; i < 300; ++i) {
+            list.add(randomTask(random, i));
+        }
+        list.add(list.get(7));
+        Task[] tasks = list.toArray(new Task[0]);
+        long from = Task.toEpochSecond(BASE.plusDays(1));
+        long[] lengths = {3600L * 24, 3600L * 24 * 7, 3600L * 24 * 7 + 900, 1, 900};
+        int[] slices = {2, 3, 4, 7, 16, 24, 96, 1000, 100_000};
+        for (long length : lengths) {
+            long to = from + length;
+            List<Map.Entry<Long, List<Task>>> expected = dates(TaskCalendar.build(tasks, from, to, 1));
+            for (int count : slices) {
+                assertEquals("length " + length + ", slices " + count,
+                        expected, dates(TaskCalendar.build(tasks, from, to, count)));
+            }
+        }
+        assertFalse(dates(TaskCalendar.build(tasks, from, from + 3600L * 24 * 7, 1)).isEmpty());
+    }
+
+    @Test
+    public void parallelBuildAboveThresholdMatchesSingleMerge() {
+        Random random = new Random(51);
+        List<Task> list = new ArrayList<>();
+        long from = Task.toEpochSecond(BASE);
+        long to = Task.toEpochSecond(BASE.plusDays(30));
+        while (TaskCalendar.countExecutions(list.toArray(new Task[0]), from, to, TaskCalendar.PARALLEL_THRESHOLD)
+                < TaskCalendar.PARALLEL_THRESHOLD) {
+            for (int i = 0; i < 100; ++i) {
+                list.add(randomTask(random, list.size()));
+            }
+        }
+        Task[] tasks = list.toArray(new Task[0]);
+        assertEquals(dates(TaskCalendar.build(tasks, from, to, 1)), dates(TaskCalendar.build(list, from, to)));
+    }
+}
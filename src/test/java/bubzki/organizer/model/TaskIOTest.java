@@ -0,0 +1,136 @@
+package bubzki.organizer.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of reading and writing task lists. The files "legacy-*.bin" were written
+ * by {@link TaskIO#writeBinary(AbstractTaskList, File)} of the first version of the app,
+ * which used Java serialization: the files without a suffix by the build for Java 11 and later,
+ * and the files with the suffix "-java9" by the build for Java 9, which computed other serial versions.
+ * Every file has an array or a linked list with the three tasks checked by {@link #assertLegacyTasks(List)}.
+ */
+public class TaskIOTest {
+    private final static String[] LEGACY_FILES = {
+            "legacy-array.bin", "legacy-linked.bin", "legacy-array-java9.bin", "legacy-linked-java9.bin"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Task> tasks(Iterable<Task> list) {
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : list) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void assertLegacyTasks(List<Task> tasks) {
+        assertEquals(3, tasks.size());
+        Task single = tasks.get(0);
+        assertEquals("Single", single.getTitle());
+        assertFalse(single.isRepeated());
+        assertTrue(single.isActive());
+        assertEquals(LocalDateTime.of(2021, 6, 1, 10, 15, 30), single.getTime());
+        Task repeated = tasks.get(1);
+        assertEquals("Repeated", repeated.getTitle());
+        assertTrue(repeated.isRepeated());
+        assertFalse(repeated.isActive());
+        assertEquals(LocalDateTime.of(2021, 6, 1, 8, 0), repeated.getStartTime());
+        assertEquals(LocalDateTime.of(2021, 6, 30, 8, 0), repeated.getEndTime());
+        assertEquals(86400, repeated.getRepeatInterval());
+        Task unicode = tasks.get(2);
+        assertEquals("Задача ü", unicode.getTitle());
+        assertTrue(unicode.isActive());
+        assertEquals(LocalDateTime.of(2022, 12, 31, 23, 59, 59), unicode.getStartTime());
+        assertEquals(LocalDateTime.of(2023, 1, 1, 0, 0, 59), unicode.getEndTime());
+        assertEquals(30, unicode.getRepeatInterval());
+    }
+
+    private File copyOfResource(String name) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        try (InputStream in = TaskIOTest.class.getResourceAsStream(name)) {
+            assertNotNull("Missing test resource " + name, in);
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    @Test
+    public void listsDeclareSerialVersionsOfFirstVersion() {
+        assertEquals(8055119239984533267L, ObjectStreamClass.lookup(ArrayTaskList.class).getSerialVersionUID());
+        assertEquals(-697823154686483861L, ObjectStreamClass.lookup(LinkedTaskList.class).getSerialVersionUID());
+    }
+
+    @Test
+    public void readsLegacyFiles() throws IOException, ClassNotFoundException {
+        for (String name : LEGACY_FILES) {
+            ArrayTaskList list = new ArrayTaskList();
+            try (InputStream in = TaskIOTest.class.getResourceAsStream(name)) {
+                assertTrue(name, TaskIO.readDetectingFormat(list, in));
+            }
+            assertLegacyTasks(tasks(list));
+        }
+    }
+
+    @Test
+    public void readBinaryMigratesLegacyFileToCompactFormat() throws IOException {
+        for (String name : LEGACY_FILES) {
+            File file = copyOfResource(name);
+            LinkedTaskList list = new LinkedTaskList();
+            TaskIO.readBinary(list, file);
+            assertLegacyTasks(tasks(list));
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                assertTrue(name, TaskBinaryFormat.matches(in));
+            }
+            ArrayTaskList migrated = new ArrayTaskList();
+            TaskIO.readBinary(migrated, file);
+            assertLegacyTasks(tasks(migrated));
+            assertEquals(tasks(list), tasks(migrated));
+        }
+    }
+
+    @Test
+    public void compactFormatRoundTrip() throws IOException {
+        File legacy = copyOfResource("legacy-array.bin");
+        ArrayTaskList list = new ArrayTaskList();
+        TaskIO.readBinary(list, legacy);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskIO.write(list, out);
+        for (AbstractTaskList read : new AbstractTaskList[]{new ArrayTaskList(), new LinkedTaskList(),
+                new ConcurrentTaskList(), new IndexedTaskList(), new UnrolledTaskList()}) {
+            TaskIO.read(read, new ByteArrayInputStream(out.toByteArray()));
+            assertLegacyTasks(tasks(read));
+            assertEquals(tasks(list), tasks(read));
+        }
+    }
+
+    @Test
+    public void jsonRoundTrip() {
+        Task task = new Task("Json", LocalDateTime.of(2021, 6, 1, 8, 0), LocalDateTime.of(2021, 6, 2, 8, 0), 3600);
+        task.setActive(true);
+        ArrayTaskList list = new ArrayTaskList();
+        list.add(task);
+        StringWriter out = new StringWriter();
+        TaskIO.write(list, out);
+        ArrayTaskList read = new ArrayTaskList();
+        TaskIO.read(read, new StringReader(out.toString()));
+        assertEquals(1, read.size());
+        Task readTask = read.getTask(0);
+        assertEquals(task.getTitle(), readTask.getTitle());
+        assertEquals(task.getStartTime(), readTask.getStartTime());
+        assertEquals(task.getEndTime(), readTask.getEndTime());
+        assertEquals(task.getRepeatInterval(), readTask.getRepeatInterval());
+        assertEquals(task.isActive(), readTask.isActive());
+    }
+}
@@ -0,0 +1,151 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of the lookup by identifiers of every list type against a plain list of tasks.
+ * The lists get tasks with the same identifiers (clones), so the first of them must be found,
+ * and enough removals to rebuild the index of identifiers several times.
+ */
+public class TaskIdIndexTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    private static Task task(int number) {
+        Task task = new Task("task " + number, BASE.plusMinutes(number));
+        task.setActive(true);
+        return task;
+    }
+
+    private static int indexOf(List<Task> tasks, long id) {
+        for (int i = 0; i < tasks.size(); ++i) {
+            if (tasks.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertSameTasks(List<Task> expected, AbstractTaskList list) {
+        assertEquals(expected.size(), list.size());
+        int i = 0;
+        for (Task task : list) {
+            assertSame(expected.get(i++), task);
+        }
+    }
+
+    private static void randomChanges(ListTypes.types type, long seed) throws CloneNotSupportedException {
+        Random random = new Random(seed);
+        AbstractTaskList list = TaskListFactory.createTaskList(type);
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            Task task = task(i);
+            list.add(task);
+            expected.add(task);
+        }
+        for (int round = 0; round < 5000; ++round) {
+            int operation = random.nextInt(100);
+            if (operation < 30) {
+                Task task = (expected.isEmpty() || random.nextInt(4) != 0 ? task(1000 + round)
+                        : expected.get(random.nextInt(expected.size())).clone());
+                list.add(task);
+                expected.add(task);
+            } else if (operation < 60 && !expected.isEmpty()) {
+                Task task = expected.get(random.nextInt(expected.size()));
+                int index = indexOf(expected, task.getId());
+                assertTrue(list.remove(task));
+                expected.remove(index);
+                int next = indexOf(expected, task.getId());
+                assertSame(next == -1 ? null : expected.get(next), list.getById(task.getId()));
+            } else if (operation < 75 && !expected.isEmpty()) {
+                long id = expected.get(random.nextInt(expected.size())).getId();
+                int index = indexOf(expected, id);
+                assertTrue(list.removeById(id));
+                expected.remove(index);
+            } else if (operation < 85) {
+                long id = (expected.isEmpty() || random.nextInt(5) == 0 ? -1 - random.nextInt(100)
+                        : expected.get(random.nextInt(expected.size())).getId());
+                int index = indexOf(expected, id);
+                assertSame(index == -1 ? null : expected.get(index), list.getById(id));
+                assertEquals(index, list.indexOfId(id));
+            } else if (operation < 90 && !expected.isEmpty()) {
+                int index = indexOf(expected, expected.get(random.nextInt(expected.size())).getId());
+                Iterator<Task> iterator = list.iterator();
+                for (int i = 0; i <= index; ++i) {
+                    iterator.next();
+                }
+                iterator.remove();
+                expected.remove(index);
+            } else if (operation < 95 && !expected.isEmpty()) {
+                Task task = expected.get(random.nextInt(expected.size()));
+                boolean first = expected.get(indexOf(expected, task.getId())) == task;
+                assertEquals(first, list.update(task, changed -> changed.setTitle("updated")));
+            } else if (operation < 97) {
+                int modulo = 5 + random.nextInt(20);
+                list.removeIf(task -> task.getId() % modulo == 0);
+                expected.removeIf(task -> task.getId() % modulo == 0);
+            } else if (operation < 99) {
+                List<Task> replaced = new ArrayList<>();
+                for (Task task : expected) {
+                    replaced.add(random.nextInt(10) == 0 ? task(5000 + round) : task);
+                }
+                int[] next = {0};
+                list.replaceAll(task -> replaced.get(next[0]++));
+                expected = replaced;
+            } else {
+                AbstractTaskList clone = list.clone();
+                for (Task task : expected) {
+                    assertEquals(task.getId(), clone.getById(task.getId()).getId());
+                }
+            }
+            if (round % 50 == 0) {
+                assertSameTasks(expected, list);
+            }
+        }
+        assertSameTasks(expected, list);
+        for (Task task : new ArrayList<>(expected)) {
+            int index = indexOf(expected, task.getId());
+            assertSame(expected.get(index), list.getById(task.getId()));
+            assertEquals(index, list.indexOfId(task.getId()));
+            assertTrue(list.remove(task));
+            expected.remove(index);
+        }
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    public void lookupsMatchPlainListForEveryType() throws CloneNotSupportedException {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            randomChanges(type, 17 + type.ordinal());
+        }
+    }
+
+    @Test
+    public void removingFirstOfDuplicatesFindsTheNextOne() throws CloneNotSupportedException {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            AbstractTaskList list = TaskListFactory.createTaskList(type);
+            Task task = task(1);
+            Task copy = task.clone();
+            list.add(task);
+            for (int i = 0; i < 100; ++i) {
+                list.add(task(100 + i));
+            }
+            list.add(copy);
+            list.remove(list.getTask(50));
+            assertSame(type.name(), task, list.getById(task.getId()));
+            assertTrue(list.remove(task));
+            assertSame(type.name(), copy, list.getById(task.getId()));
+            assertTrue(list.remove(copy));
+            assertNull(type.name(), list.getById(task.getId()));
+            assertFalse(list.remove(task));
+            assertEquals(type.name(), 99, list.size());
+        }
+    }
+}
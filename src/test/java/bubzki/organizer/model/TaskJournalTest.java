@@ -0,0 +1,230 @@
+package bubzki.organizer.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TaskJournalTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File copyOfResource(String name) throws IOException {
+        File file = new File(folder.getRoot(), "tasks.bin");
+        try (InputStream in = TaskJournalTest.class.getResourceAsStream(name)) {
+            assertNotNull("Missing test resource " + name, in);
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    private static List<String> titles(Iterable<Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+
+    @Test
+    public void loadsLegacySnapshotsOfAllBuilds() throws Exception {
+        for (String name : new String[]{"legacy-array.bin", "legacy-linked.bin", "legacy-array-java9.bin",
+                "legacy-linked-java9.bin"}) {
+            File snapshot = copyOfResource(name);
+            ConcurrentTaskList list = new ConcurrentTaskList();
+            try (TaskJournal journal = new TaskJournal(snapshot)) {
+                journal.load(list, list::addAll);
+                journal.loadCompleted();
+                assertFalse(name, journal.isDirty());
+                Task added = new Task("added", BASE);
+                list.add(added);
+                journal.added(added).get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(name, List.of("Single", "Repeated", "Задача ü", "added"), titles(list));
+            ConcurrentTaskList reloaded = new ConcurrentTaskList();
+            try (TaskJournal journal = new TaskJournal(snapshot)) {
+                journal.load(reloaded, reloaded::addAll);
+            }
+            assertEquals(name, titles(list), titles(reloaded));
+            Files.deleteIfExists(new File(folder.getRoot(), "tasks.bin.journal").toPath());
+        }
+    }
+
+    /**
+     * The tasks of a legacy snapshot get new identifiers when it is read, so the snapshot must be written
+     * in the current format before the edits are journaled, or the records would refer to identifiers
+     * which are given to other tasks when the snapshot is read again.
+     */
+    @Test(timeout = 60_000)
+    public void editsOfLegacyTasksAreKeptAfterReload() throws Exception {
+        File snapshot = copyOfResource("legacy-array.bin");
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        try (TaskJournal journal = new TaskJournal(snapshot)) {
+            journal.load(list, list::addAll);
+            Task edited = list.getTask(0);
+            list.update(edited, task -> task.setTitle("Edited"));
+            CompletableFuture<Void> held = journal.edited(edited);
+            journal.loadCompleted();
+            try (InputStream in = new BufferedInputStream(new FileInputStream(snapshot))) {
+                assertTrue(TaskBinaryFormat.matches(in));
+            }
+            held.get(10, TimeUnit.SECONDS);
+            Task removed = list.getTask(1);
+            list.remove(removed);
+            journal.removed(removed).get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of("Edited", "Задача ü"), titles(list));
+        for (int i = 0; i < 10; ++i) {
+            new Task("shift " + i, BASE);
+        }
+        ConcurrentTaskList reloaded = new ConcurrentTaskList();
+        try (TaskJournal journal = new TaskJournal(snapshot)) {
+            journal.load(reloaded, reloaded::addAll);
+        }
+        assertEquals(titles(list), titles(reloaded));
+    }
+
+    /**
+     * The tasks of a legacy snapshot are not journaled if the journal is closed before the snapshot is written again.
+     */
+    @Test(timeout = 60_000)
+    public void editsOfLegacyTasksAreDroppedBeforeLoadCompleted() throws Exception {
+        File snapshot = copyOfResource("legacy-array.bin");
+        byte[] written = Files.readAllBytes(snapshot.toPath());
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        CompletableFuture<Void> held;
+        try (TaskJournal journal = new TaskJournal(snapshot)) {
+            journal.load(list, list::addAll);
+            Task edited = list.getTask(0);
+            list.update(edited, task -> task.setTitle("Edited"));
+            held = journal.edited(edited);
+        }
+        try {
+            held.get(10, TimeUnit.SECONDS);
+            fail("The edit of the legacy task was journaled.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertArrayEquals(written, Files.readAllBytes(snapshot.toPath()));
+        ConcurrentTaskList reloaded = new ConcurrentTaskList();
+        try (TaskJournal journal = new TaskJournal(snapshot)) {
+            journal.load(reloaded, reloaded::addAll);
+        }
+        assertEquals(List.of("Single", "Repeated", "Задача ü"), titles(reloaded));
+    }
+
+    /**
+     * The tasks are updated through the list while the journal is compacted again and again.
+     * Every update changes the title and the time of a task together, so every task in the snapshot
+     * must have the title and the time of the same update.
+     */
+    @Test(timeout = 60_000)
+    public void compactionWritesTasksInConsistentState() throws Exception {
+        File snapshot = new File(folder.getRoot(), "tasks.bin");
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        try (TaskJournal journal = new TaskJournal(snapshot)) {
+            journal.load(list, list::addAll);
+            journal.loadCompleted();
+            for (int i = 0; i < 1000; ++i) {
+                list.add(new Task("0", BASE));
+            }
+            AtomicBoolean done = new AtomicBoolean();
+            Thread updater = new Thread(() -> {
+                for (int version = 1; !done.get(); ++version) {
+                    for (int i = 0; i < list.size(); ++i) {
+                        int next = version;
+                        list.update(list.getTask(i), task -> {
+                            task.setTitle(String.valueOf(next));
+                            task.setTime(BASE.plusSeconds(next));
+                        });
+                    }
+                }
+            });
+            updater.start();
+            try {
+                for (int round = 0; round < 30; ++round) {
+                    journal.compact().get(10, TimeUnit.SECONDS);
+                    List<Task> written;
+                    try (InputStream in = new BufferedInputStream(new FileInputStream(snapshot))) {
+                        written = TaskBinaryFormat.read(in);
+                    }
+                    assertEquals(1000, written.size());
+                    for (Task task : written) {
+                        assertEquals(BASE.plusSeconds(Integer.parseInt(task.getTitle())), task.getTime());
+                    }
+                }
+            } finally {
+                done.set(true);
+                updater.join();
+            }
+        }
+    }
+
+    /**
+     * The batches are kept away from the list, as they are while they wait for the JavaFX thread,
+     * and the journal grows past the threshold: no path may compact the incomplete list into the snapshot.
+     * The journal is compacted after {@link TaskJournal#loadCompleted()}.
+     */
+    @Test(timeout = 60_000)
+    public void journalIsNotCompactedBeforeLoadCompleted() throws Exception {
+        File snapshot = new File(folder.getRoot(), "tasks.bin");
+        ArrayTaskList original = new ArrayTaskList();
+        for (int i = 0; i < 100; ++i) {
+            original.add(new Task("task " + i, BASE.plusMinutes(i)));
+        }
+        TaskIO.writeBinary(original, snapshot);
+        byte[] written = Files.readAllBytes(snapshot.toPath());
+        AtomicInteger checkpoints = new AtomicInteger();
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        List<List<Task>> batches = new ArrayList<>();
+        try (TaskJournal journal = new TaskJournal(snapshot, 64)) {
+            journal.setCheckpointListener((duration, e) -> checkpoints.incrementAndGet());
+            journal.load(list, batches::add);
+            journal.checkpointEvery(1, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < 5; ++i) {
+                Task added = new Task("added " + i, BASE);
+                list.add(added);
+                journal.added(added).get(10, TimeUnit.SECONDS);
+            }
+            try {
+                journal.compact().get(10, TimeUnit.SECONDS);
+                fail("The incomplete list was compacted.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(0, checkpoints.get());
+        assertArrayEquals(written, Files.readAllBytes(snapshot.toPath()));
+        assertEquals(100, batches.stream().mapToInt(List::size).sum());
+
+        ConcurrentTaskList reloaded = new ConcurrentTaskList();
+        try (TaskJournal journal = new TaskJournal(snapshot, 64)) {
+            journal.setCheckpointListener((duration, e) -> checkpoints.incrementAndGet());
+            journal.load(reloaded, reloaded::addAll);
+            assertEquals(105, reloaded.size());
+            journal.loadCompleted();
+        }
+        assertEquals(1, checkpoints.get());
+        List<Task> compacted;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(snapshot))) {
+            compacted = TaskBinaryFormat.read(in);
+        }
+        assertEquals(titles(reloaded), titles(compacted));
+    }
+}
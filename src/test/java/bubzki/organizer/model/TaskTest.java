@@ -0,0 +1,136 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TaskTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 12, 0);
+
+    /**
+     * The reference implementation of {@link Task#nextTimeAfter(LocalDateTime)}
+     * that walks the timeline of the task, as it was done before the closed form.
+     *
+     * @param task the task
+     * @param current the specified time
+     *
+     * @return the time of the next task execution after the specified time or <code>null</code>
+     */
+    static LocalDateTime nextTimeAfterByLoop(Task task, LocalDateTime current) {
+        if (!task.isActive()) {
+            return null;
+        }
+        if (!task.isRepeated()) {
+            return (current.isAfter(task.getTime()) || current.isEqual(task.getTime()) ? null : task.getTime());
+        }
+        Duration interval = Duration.ofSeconds(task.getRepeatInterval());
+        if (current.isBefore(task.getEndTime())) {
+            for (LocalDateTime i = task.getStartTime(); !i.isAfter(task.getEndTime()); i = i.plus(interval)) {
+                if (current.isBefore(i)) {
+                    return i;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Task repeated(int startOffset, int length, int interval, boolean active) {
+        Task task = new Task("repeated", BASE.plusSeconds(startOffset), BASE.plusSeconds(startOffset + length), interval);
+        task.setActive(active);
+        return task;
+    }
+
+    private static Task single(int offset, boolean active) {
+        Task task = new Task("single", BASE.plusSeconds(offset));
+        task.setActive(active);
+        return task;
+    }
+
+    private static void assertParity(Task task, LocalDateTime current) {
+        assertEquals(task + " after " + current, nextTimeAfterByLoop(task, current), task.nextTimeAfter(current));
+    }
+
+    @Test
+    public void nextTimeAfterBeforeStartIsStart() {
+        Task task = repeated(100, 1000, 30, true);
+        assertEquals(BASE.plusSeconds(100), task.nextTimeAfter(BASE));
+        assertEquals(BASE.plusSeconds(100), task.nextTimeAfter(BASE.plusSeconds(99).plusNanos(999_999_999)));
+        assertParity(task, BASE);
+        assertParity(task, BASE.plusSeconds(99));
+    }
+
+    @Test
+    public void nextTimeAfterAtOrAfterEndIsNull() {
+        Task task = repeated(0, 90, 30, true);
+        assertNull(task.nextTimeAfter(BASE.plusSeconds(90)));
+        assertNull(task.nextTimeAfter(BASE.plusSeconds(91)));
+        assertEquals(BASE.plusSeconds(90), task.nextTimeAfter(BASE.plusSeconds(89).plusNanos(1)));
+        assertParity(task, BASE.plusSeconds(90));
+        assertParity(task, BASE.plusSeconds(1000));
+    }
+
+    @Test
+    public void nextTimeAfterLastRepetitionBeforeEnd() {
+        Task task = repeated(0, 100, 30, true);
+        assertEquals(BASE.plusSeconds(90), task.nextTimeAfter(BASE.plusSeconds(60)));
+        assertNull(task.nextTimeAfter(BASE.plusSeconds(90)));
+        assertParity(task, BASE.plusSeconds(95));
+    }
+
+    @Test
+    public void nextTimeAfterOfInactiveTaskIsNull() {
+        assertNull(repeated(100, 1000, 30, false).nextTimeAfter(BASE));
+        assertNull(single(100, false).nextTimeAfter(BASE));
+        assertParity(repeated(100, 1000, 30, false), BASE.plusSeconds(200));
+        assertParity(single(100, false), BASE);
+    }
+
+    @Test
+    public void nextTimeAfterOfSingleTask() {
+        Task task = single(100, true);
+        assertEquals(BASE.plusSeconds(100), task.nextTimeAfter(BASE.plusSeconds(99)));
+        assertNull(task.nextTimeAfter(BASE.plusSeconds(100)));
+        assertParity(task, BASE.plusSeconds(99).plusNanos(500));
+        assertParity(task, BASE.plusSeconds(101));
+    }
+
+    @Test
+    public void nextTimeAfterMatchesLoopOnRandomTasks() {
+        Random random = new Random(20210601);
+        for (int i = 0; i < 2000; ++i) {
+            boolean active = random.nextInt(4) != 0;
+            Task task = (random.nextInt(3) == 0 ? single(random.nextInt(10_000), active)
+                    : repeated(random.nextInt(10_000), random.nextInt(20_000), 1 + random.nextInt(3600), active));
+            long start = task.getStartEpochSecond();
+            long end = task.getEndEpochSecond();
+            long[] points = {start - 1, start, start + 1, end - 1, end, end + 1,
+                    start + random.nextInt((int) (end - start) + 1), start - 1 - random.nextInt(10_000),
+                    end + 1 + random.nextInt(10_000)};
+            for (long point : points) {
+                LocalDateTime current = Task.ofEpochSecond(point);
+                assertParity(task, current);
+                assertParity(task, current.plusNanos(1 + random.nextInt(999_999_999)));
+            }
+        }
+    }
+
+    @Test
+    public void nextTimeAfterInEpochSecondsMatchesDateTime() {
+        Task task = repeated(0, 3600, 60, true);
+        for (int offset = -120; offset <= 3720; offset += 7) {
+            LocalDateTime current = BASE.plusSeconds(offset);
+            LocalDateTime next = task.nextTimeAfter(current);
+            long nextSecond = task.nextTimeAfter(Task.toEpochSecond(current));
+            assertEquals(next == null ? Task.NO_TIME : Task.toEpochSecond(next), nextSecond);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nextTimeAfterRejectsNull() {
+        single(0, true).nextTimeAfter(null);
+    }
+}
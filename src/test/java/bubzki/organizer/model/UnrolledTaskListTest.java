@@ -0,0 +1,101 @@
+package bubzki.organizer.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of the chunks of {@link UnrolledTaskList} against a plain list of tasks.
+ * After every operation every task is read by index, sequentially and at random,
+ * so the chunk of the last access, the merge of chunks and the recalculated indexes of chunks are all checked.
+ */
+public class UnrolledTaskListTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    private static Task task(int number) {
+        return new Task("task " + number, BASE.plusMinutes(number));
+    }
+
+    private static void assertSameTasks(List<Task> expected, UnrolledTaskList list, Random random) {
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertSame(expected.get(i), list.getTask(i));
+        }
+        for (int i = 0; i < 20 && !expected.isEmpty(); ++i) {
+            int index = random.nextInt(expected.size());
+            assertSame(expected.get(index), list.getTask(index));
+        }
+    }
+
+    @Test
+    public void middleRemovalsAndAppendsMatchPlainList() {
+        Random random = new Random(13);
+        UnrolledTaskList list = new UnrolledTaskList();
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            Task task = task(i);
+            list.add(task);
+            expected.add(task);
+        }
+        assertSameTasks(expected, list, random);
+        for (int round = 0; round < 3000; ++round) {
+            if (random.nextInt(3) == 0 || expected.isEmpty()) {
+                Task task = task(1000 + round);
+                list.add(task);
+                expected.add(task);
+            } else {
+                int index = (expected.size() / 4) + random.nextInt(Math.max(1, expected.size() / 2));
+                index = Math.min(index, expected.size() - 1);
+                assertTrue(list.remove(expected.remove(index)));
+            }
+            assertSameTasks(expected, list, random);
+        }
+        while (!expected.isEmpty()) {
+            assertTrue(list.remove(expected.remove(expected.size() / 2)));
+            assertSameTasks(expected, list, random);
+        }
+        assertEquals(0, list.chunkCount());
+    }
+
+    @Test
+    public void emptyChunksAreRemovedAndSparseChunksAreMerged() {
+        Random random = new Random(31);
+        UnrolledTaskList list = new UnrolledTaskList();
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 64 * 10; ++i) {
+            Task task = task(i);
+            list.add(task);
+            expected.add(task);
+        }
+        assertEquals(10, list.chunkCount());
+        for (int i = 0; i < 64; ++i) {
+            assertTrue(list.remove(expected.remove(64)));
+        }
+        assertEquals(9, list.chunkCount());
+        assertSameTasks(expected, list, random);
+        for (int i = 0; i < 48; ++i) {
+            assertTrue(list.remove(expected.remove(128)));
+        }
+        assertEquals(9, list.chunkCount());
+        for (int i = 0; i < 47; ++i) {
+            assertTrue(list.remove(expected.remove(64)));
+        }
+        assertEquals(9, list.chunkCount());
+        assertSameTasks(expected, list, random);
+        assertTrue(list.remove(expected.remove(64)));
+        assertEquals(8, list.chunkCount());
+        assertSameTasks(expected, list, random);
+        for (int i = 0; i < 64; ++i) {
+            Task task = task(2000 + i);
+            list.add(task);
+            expected.add(task);
+        }
+        assertEquals(9, list.chunkCount());
+        assertSameTasks(expected, list, random);
+    }
+}
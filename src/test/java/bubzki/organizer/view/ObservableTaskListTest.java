@@ -0,0 +1,113 @@
+package bubzki.organizer.view;
+
+import bubzki.organizer.model.AbstractTaskList;
+import bubzki.organizer.model.ListTypes;
+import bubzki.organizer.model.Task;
+import bubzki.organizer.model.TaskListFactory;
+import javafx.collections.ListChangeListener;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The tests of the changes that the observable view reports for every list type.
+ * An edited task must be reported as one replaced row, so a table redraws only this row.
+ */
+public class ObservableTaskListTest {
+    private final static LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    /**
+     * The class of the reported changes, copied while they are reported.
+     */
+    private static class Report {
+        final int from;
+        final int to;
+        final boolean replaced;
+        final boolean added;
+        final boolean removed;
+        final List<Task> removedTasks;
+
+        Report(ListChangeListener.Change<? extends Task> change) {
+            from = change.getFrom();
+            to = change.getTo();
+            replaced = change.wasReplaced();
+            added = change.wasAdded();
+            removed = change.wasRemoved();
+            removedTasks = new ArrayList<>(change.getRemoved());
+        }
+    }
+
+    private static ObservableTaskList observableList(ListTypes.types type, List<Task> tasks) {
+        AbstractTaskList list = TaskListFactory.createTaskList(type);
+        for (int i = 0; i < 200; ++i) {
+            Task task = new Task("task " + i, BASE.plusMinutes(i));
+            list.add(task);
+            tasks.add(task);
+        }
+        return new ObservableTaskList(list);
+    }
+
+    private static List<List<Report>> listen(ObservableTaskList list) {
+        List<List<Report>> reports = new ArrayList<>();
+        list.addListener((ListChangeListener<Task>) change -> {
+            List<Report> report = new ArrayList<>();
+            while (change.next()) {
+                report.add(new Report(change));
+            }
+            reports.add(report);
+        });
+        return reports;
+    }
+
+    @Test
+    public void updateReportsOneReplacedRow() {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            List<Task> tasks = new ArrayList<>();
+            ObservableTaskList list = observableList(type, tasks);
+            List<List<Report>> reports = listen(list);
+            Task task = tasks.get(137);
+            assertTrue(list.update(task, changed -> changed.setTitle("updated")));
+            assertEquals(type.name(), 1, reports.size());
+            assertEquals(type.name(), 1, reports.get(0).size());
+            Report report = reports.get(0).get(0);
+            assertTrue(type.name(), report.replaced);
+            assertEquals(type.name(), 137, report.from);
+            assertEquals(type.name(), 138, report.to);
+            assertEquals(type.name(), List.of(task), report.removedTasks);
+            assertSame(task, list.get(137));
+            assertEquals("updated", list.get(137).getTitle());
+
+            Task other = new Task("other", BASE);
+            assertFalse(list.update(other, changed -> changed.setTitle("never")));
+            assertEquals(type.name(), 1, reports.size());
+            assertEquals("other", other.getTitle());
+        }
+    }
+
+    @Test
+    public void removeReportsTheRowOfTheTask() {
+        for (ListTypes.types type : ListTypes.types.values()) {
+            List<Task> tasks = new ArrayList<>();
+            ObservableTaskList list = observableList(type, tasks);
+            List<List<Report>> reports = listen(list);
+            for (int i = 0; i < 50; ++i) {
+                int index = (i * 37) % tasks.size();
+                Task task = tasks.remove(index);
+                assertEquals(type.name(), index, list.indexOf(task));
+                assertTrue(list.remove(task));
+                Report report = reports.get(reports.size() - 1).get(0);
+                assertTrue(type.name(), report.removed && !report.added);
+                assertEquals(type.name(), index, report.from);
+                assertEquals(type.name(), List.of(task), report.removedTasks);
+                assertEquals(type.name(), -1, list.indexOf(task));
+                assertFalse(list.remove(task));
+            }
+            assertEquals(type.name(), 50, reports.size());
+            assertEquals(type.name(), tasks, new ArrayList<>(list));
+        }
+    }
+}